@@ -2,8 +2,10 @@ package org.ex9.dealservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class DealServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,37 @@
+package org.ex9.dealservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Конфигурация пула потоков для фоновой выгрузки сделок.
+ * <p>Пул и очередь ограничены: при переполнении очереди новые задачи отклоняются,
+ * а не накапливаются в памяти и не занимают соединения БД.</p>
+ *
+ * @author Краковцев Артём
+ */
+@Configuration
+public class ExportJobConfig {
+
+    public static final String EXPORT_JOB_EXECUTOR = "exportJobExecutor";
+
+    @Value("${deal.export.jobs.concurrency:2}")
+    private int concurrency;
+
+    @Value("${deal.export.jobs.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Bean(EXPORT_JOB_EXECUTOR)
+    public ThreadPoolTaskExecutor exportJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("deal-export-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+}
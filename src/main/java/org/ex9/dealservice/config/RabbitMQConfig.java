@@ -13,6 +13,7 @@ import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 
 /**
  * Конфигурация RabbitMQ.
@@ -54,13 +55,26 @@ public class RabbitMQConfig {
     @Value("${spring.rabbitmq.routing-keys.retry}")
     private String dealsRetryRoutingKey;
 
+    //listener
+    @Value("${spring.rabbitmq.listener.simple.concurrency:1}")
+    private int concurrentConsumers;
+
+    @Value("${spring.rabbitmq.listener.simple.max-concurrency:1}")
+    private int maxConcurrentConsumers;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
     /**Конвертер для десериализации payload из сообщения*/
     @Bean
     public Jackson2JsonMessageConverter jackson2JsonMessageConverter(ObjectMapper objectMapper) {
         return new Jackson2JsonMessageConverter(objectMapper);
     }
 
-    /**Контейнер ручным подтверждением сообщений (MANUAL ACK)*/
+    /**
+     * Контейнер ручным подтверждением сообщений (MANUAL ACK).
+     * При {@code spring.threads.virtual.enabled=true} потребители работают на виртуальных потоках.
+     */
     @Bean
     public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(
             ConnectionFactory connectionFactory,
@@ -69,6 +83,13 @@ public class RabbitMQConfig {
         factory.setConnectionFactory(connectionFactory);
         factory.setMessageConverter(converter);
         factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setConcurrentConsumers(concurrentConsumers);
+        factory.setMaxConcurrentConsumers(Math.max(concurrentConsumers, maxConcurrentConsumers));
+        if (virtualThreadsEnabled) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("rabbit-listener-");
+            executor.setVirtualThreads(true);
+            factory.setTaskExecutor(executor);
+        }
         return factory;
     }
 
@@ -19,7 +19,7 @@ import static com.fasterxml.jackson.annotation.JsonTypeInfo.As.PROPERTY;
 
 /**
  * Конфигурация Redis для сделок и справочной информации о сделках.
- * <p>Для сделок TTL = 30 мин., для справочников 1 час.
+ * <p>Для сделок TTL = 30 мин., для справочников 1 час, для оценок количества найденных сделок 1 мин.
  * Имеет JSON-сериализацию (GenericJackson2JsonRedisSerializer)</p>
  *
  * @author Краковцев Артём
@@ -31,6 +31,7 @@ public class RedisConfig {
 
     public static final String DEALS = "deals";
     public static final String DEALS_SUB = "deal_metadata";
+    public static final String DEAL_SEARCH_TOTALS = "deal_search_totals";
 
     private final ObjectMapper objectMapper;
 
@@ -39,12 +40,8 @@ public class RedisConfig {
      */
     @Bean
     public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
-        ObjectMapper cacheObjectMapper = objectMapper.copy();
-        cacheObjectMapper.activateDefaultTyping(cacheObjectMapper.getPolymorphicTypeValidator(),
-                ObjectMapper.DefaultTyping.NON_FINAL,
-                PROPERTY);
         var dealsSerializer = RedisSerializationContext.SerializationPair
-                .fromSerializer(new GenericJackson2JsonRedisSerializer(cacheObjectMapper));
+                .fromSerializer(cacheSerializer(objectMapper));
 
         RedisCacheConfiguration dealsConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(30))
@@ -54,13 +51,33 @@ public class RedisConfig {
                 .entryTtl(Duration.ofHours(1))
                 .serializeValuesWith(dealsSerializer);
 
+        RedisCacheConfiguration totalsConfig = RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(Duration.ofMinutes(1))
+                .serializeValuesWith(dealsSerializer);
+
         Map<String, RedisCacheConfiguration> cacheCfgs = new HashMap<>();
         cacheCfgs.put(DEALS, dealsConfig);
         cacheCfgs.put(DEALS_SUB, subConfig);
+        cacheCfgs.put(DEAL_SEARCH_TOTALS, totalsConfig);
 
         return RedisCacheManager.builder(connectionFactory)
                 .withInitialCacheConfigurations(cacheCfgs)
                 .build();
     }
 
+    /**
+     * JSON-сериализатор значений кэша с информацией о типах.
+     * Числа без дробной части читаются обратно как наименьший подходящий тип ({@code Integer} или {@code Long}).
+     *
+     * @param objectMapper ObjectMapper приложения; копируется и не изменяется
+     * @return сериализатор значений кэша
+     */
+    public static GenericJackson2JsonRedisSerializer cacheSerializer(ObjectMapper objectMapper) {
+        ObjectMapper cacheObjectMapper = objectMapper.copy();
+        cacheObjectMapper.activateDefaultTyping(cacheObjectMapper.getPolymorphicTypeValidator(),
+                ObjectMapper.DefaultTyping.NON_FINAL,
+                PROPERTY);
+        return new GenericJackson2JsonRedisSerializer(cacheObjectMapper);
+    }
+
 }
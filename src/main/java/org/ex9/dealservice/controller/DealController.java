@@ -7,16 +7,25 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.ex9.dealservice.dto.DealBatchGetRequestDto;
+import org.ex9.dealservice.dto.DealBatchItemDto;
 import org.ex9.dealservice.dto.DealChangeStatusDto;
 import org.ex9.dealservice.dto.DealResponseDto;
 import org.ex9.dealservice.dto.DealSaveRequestDto;
 import org.ex9.dealservice.dto.DealSearchRequestDto;
 import org.ex9.dealservice.dto.ErrorResponse;
+import org.ex9.dealservice.dto.ExportJobDto;
+import org.ex9.dealservice.export.ExportFormat;
 import org.ex9.dealservice.service.DealService;
-import org.springframework.data.domain.Page;
+import org.ex9.dealservice.service.ETagService;
+import org.ex9.dealservice.service.ExportJobService;
+import org.ex9.dealservice.util.FileTransferUtil;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -27,9 +36,15 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -40,9 +55,12 @@ import java.util.UUID;
 public class DealController {
 
     private final DealService dealService;
+    private final ExportJobService exportJobService;
+    private final ETagService eTagService;
 
     @Operation(summary = "Save or update a deal",
-            description = "Creates a new deal or updates an existing one if the ID is provided.")
+            description = "Creates a new deal or updates an existing one if the ID is provided. " +
+                    "With If-Match the update is applied only if it matches the current deal ETag, otherwise 412 is returned.")
     @ApiResponses({
             @ApiResponse(
                     responseCode = "200",
@@ -89,9 +107,13 @@ public class DealController {
             )
     })
     @PutMapping("/save")
-    public ResponseEntity<UUID> save(@Valid @RequestBody DealSaveRequestDto request) {
+    public ResponseEntity<UUID> save(@Valid @RequestBody DealSaveRequestDto request,
+                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.debug("Request to save Deal : {}", request);
-        return ResponseEntity.ok(dealService.dealSave(request));
+        if (ifMatch == null) {
+            return ResponseEntity.ok(dealService.dealSave(request));
+        }
+        return ResponseEntity.ok(dealService.dealSave(request, ETagService.parseDealVersion(ifMatch)));
     }
 
     @Operation(summary = "Change deal status", description = "Updates the status of an existing deal.")
@@ -143,12 +165,54 @@ public class DealController {
             description = "Retrieves full deal details by its unique identifier.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Deal found"),
+            @ApiResponse(responseCode = "304", description = "Not modified, If-None-Match matches the current ETag"),
             @ApiResponse(responseCode = "404", description = "Deal not found")
     })
     @GetMapping("/deal/{id}")
-    public ResponseEntity<DealResponseDto> getDeal(@PathVariable UUID id) {
+    public ResponseEntity<DealResponseDto> getDeal(@PathVariable UUID id, WebRequest webRequest) {
         log.debug("Request to get Deal : {}", id);
-        return ResponseEntity.ok(dealService.getDealById(id));
+        DealResponseDto deal = dealService.getDealById(id);
+        String etag = ETagService.toDealETag(deal);
+        if (etag == null) {
+            return ResponseEntity.ok(deal);
+        }
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(deal);
+    }
+
+    @Operation(summary = "Stream search results",
+            description = "Streams all active deals matching the filters as NDJSON, one deal per line, " +
+                    "while they are read from the database. Pagination parameters are ignored and no total count is computed.")
+    @ApiResponse(responseCode = "200", description = "Deals are streamed")
+    @PostMapping(value = "/search/stream", produces = ExportFormat.NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamDeals(@Valid @RequestBody DealSearchRequestDto request) {
+        log.debug("Request to stream Deals : {}", request);
+        StreamingResponseBody body = out -> dealService.streamDeals(request, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ExportFormat.NDJSON_VALUE))
+                .body(body);
+    }
+
+    @Operation(summary = "Get deals by ids",
+            description = "Returns up to " + DealBatchGetRequestDto.MAX_IDS + " deals in request order. " +
+                    "Missing or inactive deals are returned with found = false.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Deals resolved"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Empty id list or too many ids",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            )
+    })
+    @PostMapping("/batch-get")
+    public ResponseEntity<List<DealBatchItemDto>> getDeals(@Valid @RequestBody DealBatchGetRequestDto request) {
+        log.debug("Request to get {} Deals", request.getIds().size());
+        return ResponseEntity.ok(dealService.getDealsByIds(request.getIds()));
     }
 
     @Operation(summary = "Search deals", description = "Searches active deals with filtering and pagination.")
@@ -194,24 +258,84 @@ public class DealController {
             )
     })
     @PostMapping("/search")
-    public ResponseEntity<Page<DealResponseDto>> searchDeals(@Valid @RequestBody DealSearchRequestDto request) {
-        Page<DealResponseDto> deals = dealService.searchDeals(request);
+    public ResponseEntity<Slice<DealResponseDto>> searchDeals(@Valid @RequestBody DealSearchRequestDto request) {
+        Slice<DealResponseDto> deals = dealService.searchDeals(request);
         return ResponseEntity.ok(deals);
     }
 
-    @Operation(summary = "Export deals to Excel", description = "Exports filtered and sorted deals to an Excel file with pagination.")
-    @ApiResponse(responseCode = "200", description = "Excel file generated successfully")
-    @PostMapping(value = "/search/export")
-    public ResponseEntity<byte[]> exportDealsToExcel(@Valid @RequestBody DealSearchRequestDto request) {
-        byte[] excelFile = dealService.exportDealsToExcel(request);
+    @Operation(summary = "Export deals", description = "Exports filtered and sorted deals. The format is chosen by the Accept header: " +
+            "Excel (default), CSV, NDJSON or Apache Arrow IPC stream.")
+    @ApiResponse(responseCode = "200", description = "Export file generated successfully")
+    @PostMapping(value = "/search/export", produces = {ExportFormat.XLSX_VALUE, ExportFormat.CSV_VALUE, ExportFormat.NDJSON_VALUE,
+            ExportFormat.ARROW_VALUE})
+    public ResponseEntity<StreamingResponseBody> exportDeals(@Valid @RequestBody DealSearchRequestDto request,
+                                                             @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        ExportFormat format = ExportFormat.fromAccept(accept);
+        StreamingResponseBody file = out -> dealService.exportDeals(request, format, out, exported -> { });
 
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
-        headers.setContentDisposition(ContentDisposition.attachment().filename("deals_export.xlsx").build());
+        headers.setContentType(format.getContentType());
+        headers.setContentDisposition(ContentDisposition.attachment().filename(format.getFileName()).build());
 
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(excelFile);
+                .body(file);
+    }
+
+    @Operation(summary = "Start background export to Excel",
+            description = "Queues an export of filtered and sorted deals and returns the job id. " +
+                    "Progress is available via the status endpoint, the file via the download endpoint.")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Export job accepted, returns UUID of the job",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = UUID.class),
+                            examples = @ExampleObject(value = "\"5f0c4f1e-6a0b-4d5e-9a55-2f3b7c9e1d20\"")
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Export queue is full (ExportJobRejectedException)",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            )
+    })
+    @PostMapping("/search/export/jobs")
+    public ResponseEntity<UUID> startExportJob(@Valid @RequestBody DealSearchRequestDto request) {
+        log.debug("Request to start export job : {}", request);
+        return ResponseEntity.accepted().body(exportJobService.submit(request));
+    }
+
+    @Operation(summary = "Get export job status", description = "Returns status and progress of a background export.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Export job found"),
+            @ApiResponse(responseCode = "404", description = "Export job not found")
+    })
+    @GetMapping("/search/export/jobs/{id}")
+    public ResponseEntity<ExportJobDto> getExportJob(@PathVariable UUID id) {
+        return ResponseEntity.ok(exportJobService.getJob(id));
+    }
+
+    @Operation(summary = "Download export result", description = "Downloads the Excel file of a finished export job.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Excel file"),
+            @ApiResponse(responseCode = "404", description = "Export job not found or the file has expired"),
+            @ApiResponse(responseCode = "409", description = "Export job is not finished yet")
+    })
+    @GetMapping("/search/export/jobs/{id}/file")
+    public void downloadExportFile(@PathVariable UUID id,
+                                   HttpServletRequest request,
+                                   HttpServletResponse response) throws IOException {
+        Path file = exportJobService.getResultFile(id);
+
+        response.setContentType(ExportFormat.XLSX_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(ExportFormat.XLSX.getFileName()).build().toString());
+        FileTransferUtil.sendFile(file, request, response);
     }
 
 }
@@ -8,11 +8,13 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.ex9.dealservice.dto.DealStatusDto;
+import org.ex9.dealservice.service.ETagService;
 import org.ex9.dealservice.service.DealStatusService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -24,6 +26,7 @@ import java.util.List;
 public class DealStatusController {
 
     private final DealStatusService dealStatusService;
+    private final ETagService eTagService;
 
     @GetMapping("/all")
     @Operation(
@@ -36,12 +39,18 @@ public class DealStatusController {
                             content = @Content(
                                     schema = @Schema(implementation = DealStatusDto.class)
                             )
-                    )
+                    ),
+                    @ApiResponse(responseCode = "304", description = "Not modified, If-None-Match matches the current ETag")
             }
     )
-    public ResponseEntity<List<DealStatusDto>> getAll() {
+    public ResponseEntity<List<DealStatusDto>> getAll(WebRequest webRequest) {
         log.debug("get all deal-status request");
-        return ResponseEntity.ok(dealStatusService.getAll());
+        List<DealStatusDto> all = dealStatusService.getAll();
+        String etag = eTagService.toReferenceETag(all);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(all);
     }
 
 }
@@ -9,6 +9,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.ex9.dealservice.dto.DealTypeDto;
+import org.ex9.dealservice.service.ETagService;
 import org.ex9.dealservice.service.DealTypeService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,6 +17,7 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -27,6 +29,7 @@ import java.util.List;
 public class DealTypeController {
 
     private final DealTypeService dealTypeService;
+    private final ETagService eTagService;
 
     @Operation(
             summary = "Get all deal types",
@@ -36,13 +39,19 @@ public class DealTypeController {
                             responseCode = "200",
                             description = "Successful retrieval",
                             content = @Content(schema = @Schema(implementation = DealTypeDto.class))
-                    )
+                    ),
+                    @ApiResponse(responseCode = "304", description = "Not modified, If-None-Match matches the current ETag")
             }
     )
     @GetMapping("/all")
-    public ResponseEntity<List<DealTypeDto>> getAll() {
+    public ResponseEntity<List<DealTypeDto>> getAll(WebRequest webRequest) {
         log.debug("get all deal-type request");
-        return ResponseEntity.ok(dealTypeService.getAll());
+        List<DealTypeDto> all = dealTypeService.getAll();
+        String etag = eTagService.toReferenceETag(all);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(all);
     }
 
     @PutMapping("/save")
@@ -11,6 +11,7 @@ import lombok.RequiredArgsConstructor;
 import org.ex9.dealservice.dto.DealContractorSaveRequestDto;
 import org.ex9.dealservice.dto.ErrorResponse;
 import org.ex9.dealservice.service.DealContractorService;
+import org.ex9.dealservice.security.DealTypeAccessPolicy;
 import org.ex9.dealservice.util.AuthInfo;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -30,6 +31,7 @@ import java.util.UUID;
 public class UiDealContractorController {
 
     private final DealContractorService dealContractorService;
+    private final DealTypeAccessPolicy accessPolicy;
 
     @PreAuthorize("hasAnyAuthority('DEAL_SUPERUSER', 'SUPERUSER')")
     @Operation(summary = "Save or update deal contractor (protected)", description = "Creates a new deal contractor or updates an existing one.")
@@ -87,6 +89,7 @@ public class UiDealContractorController {
     })
     @PutMapping("/save")
     public ResponseEntity<UUID> saveContractor(@Valid @RequestBody DealContractorSaveRequestDto request) {
+        accessPolicy.checkDeal(request.getDealId());
         return ResponseEntity.ok(dealContractorService.saveDealContractor(request, AuthInfo.getUsername()));
     }
 
@@ -13,9 +13,11 @@ import org.ex9.dealservice.dto.DealResponseDto;
 import org.ex9.dealservice.dto.DealSaveRequestDto;
 import org.ex9.dealservice.dto.DealSearchRequestDto;
 import org.ex9.dealservice.dto.ErrorResponse;
+import org.ex9.dealservice.export.ExportFormat;
+import org.ex9.dealservice.security.DealTypeAccessPolicy;
 import org.ex9.dealservice.service.DealService;
 import org.ex9.dealservice.util.AuthInfo;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -27,8 +29,10 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.UUID;
 
@@ -38,6 +42,7 @@ import java.util.UUID;
 public class UiDealController {
 
     private final DealService dealService;
+    private final DealTypeAccessPolicy accessPolicy;
 
     @PreAuthorize("hasAnyAuthority('DEAL_SUPERUSER', 'SUPERUSER')")
     @Operation(summary = "Save or update a deal (protected)",
@@ -103,6 +108,8 @@ public class UiDealController {
     })
     @PutMapping("/save")
     public ResponseEntity<UUID> save(@Valid @RequestBody DealSaveRequestDto request) {
+        accessPolicy.checkDeal(request.getId());
+        accessPolicy.checkType(request.getTypeId());
         return ResponseEntity.ok(dealService.dealSave(request, AuthInfo.getUsername()));
     }
 
@@ -237,30 +244,32 @@ public class UiDealController {
             )
     })
     @PostMapping("/search")
-    public ResponseEntity<Page<DealResponseDto>> searchDeals(@Valid @RequestBody DealSearchRequestDto request) {
-        var allowedTypes = AuthInfo.getAllowedTypes(request.getTypeIds());
-        request.setTypeIds(allowedTypes);
-        Page<DealResponseDto> deals = dealService.searchDeals(request);
+    public ResponseEntity<Slice<DealResponseDto>> searchDeals(@Valid @RequestBody DealSearchRequestDto request) {
+        request.setTypeIds(accessPolicy.getAllowedTypes(request.getTypeIds()));
+        Slice<DealResponseDto> deals = dealService.searchDeals(request);
         return ResponseEntity.ok(deals);
     }
 
     @PreAuthorize("hasAnyAuthority('DEAL_SUPERUSER', 'SUPERUSER')")
-    @Operation(summary = "Export deals to Excel (protected)",
-            description = "Exports filtered and sorted deals to an Excel file with pagination.")
-    @ApiResponse(responseCode = "200", description = "Excel file generated successfully")
-    @PostMapping(value = "/search/export")
-    public ResponseEntity<byte[]> exportDealsToExcel(@Valid @RequestBody DealSearchRequestDto request) {
-        var allowedTypes = AuthInfo.getAllowedTypes(request.getTypeIds());
-        request.setTypeIds(allowedTypes);
-        byte[] excelFile = dealService.exportDealsToExcel(request);
+    @Operation(summary = "Export deals (protected)",
+            description = "Exports filtered and sorted deals. The format is chosen by the Accept header: " +
+                    "Excel (default), CSV, NDJSON or Apache Arrow IPC stream.")
+    @ApiResponse(responseCode = "200", description = "Export file generated successfully")
+    @PostMapping(value = "/search/export", produces = {ExportFormat.XLSX_VALUE, ExportFormat.CSV_VALUE, ExportFormat.NDJSON_VALUE,
+            ExportFormat.ARROW_VALUE})
+    public ResponseEntity<StreamingResponseBody> exportDeals(@Valid @RequestBody DealSearchRequestDto request,
+                                                             @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        request.setTypeIds(accessPolicy.getAllowedTypes(request.getTypeIds()));
+        ExportFormat format = ExportFormat.fromAccept(accept);
+        StreamingResponseBody file = out -> dealService.exportDeals(request, format, out, exported -> { });
 
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
-        headers.setContentDisposition(ContentDisposition.attachment().filename("deals_export.xlsx").build());
+        headers.setContentType(format.getContentType());
+        headers.setContentDisposition(ContentDisposition.attachment().filename(format.getFileName()).build());
 
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(excelFile);
+                .body(file);
     }
 
 }
@@ -0,0 +1,30 @@
+package org.ex9.dealservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "DTO for getting several deals by id")
+public class DealBatchGetRequestDto {
+
+    public static final int MAX_IDS = 500;
+
+    @Schema(
+            description = "Deal identifiers, the response keeps this order",
+            example = "[\"8e13d5a0-4298-49f3-a262-ea77ec628ac3\"]"
+    )
+    @NotEmpty(message = "ids must not be empty")
+    @Size(max = MAX_IDS, message = "ids must contain at most " + MAX_IDS + " elements")
+    private List<@NotNull(message = "ids must not contain null") UUID> ids;
+
+}
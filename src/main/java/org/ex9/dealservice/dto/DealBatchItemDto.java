@@ -0,0 +1,36 @@
+package org.ex9.dealservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Result of getting one deal in a batch request")
+public class DealBatchItemDto {
+
+    @Schema(
+            description = "Requested deal identifier",
+            example = "8e13d5a0-4298-49f3-a262-ea77ec628ac3"
+    )
+    private UUID id;
+
+    @Schema(description = "Whether an active deal with this id exists")
+    private boolean found;
+
+    @Schema(description = "Deal, null if not found")
+    private DealResponseDto deal;
+
+    public static DealBatchItemDto found(DealResponseDto deal) {
+        return new DealBatchItemDto(deal.getId(), true, deal);
+    }
+
+    public static DealBatchItemDto notFound(UUID id) {
+        return new DealBatchItemDto(id, false, null);
+    }
+
+}
@@ -0,0 +1,28 @@
+package org.ex9.dealservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Страница найденных сделок с оценочным общим количеством.
+ * <p>Если сделок больше предела подсчёта, {@code totalElements} равен пределу (или номеру последней
+ * известной сделки, если страница дальше предела), а {@code totalCapped} — {@code true}: «10000+».</p>
+ *
+ * @author Краковцев Артём
+ */
+@Getter
+public class DealPage<T> extends PageImpl<T> {
+
+    @Schema(description = "True if more deals were found than counted; totalElements is then a lower bound")
+    private final boolean totalCapped;
+
+    public DealPage(List<T> content, Pageable pageable, long total, boolean totalCapped) {
+        super(content, pageable, total);
+        this.totalCapped = totalCapped;
+    }
+
+}
@@ -1,5 +1,6 @@
 package org.ex9.dealservice.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -72,6 +73,7 @@ public class DealResponseDto {
             description = "List of deal amounts in different currencies",
             implementation = DealSumDto.class
     )
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<DealSumDto> sum;
 
     @Schema(
@@ -86,6 +88,14 @@ public class DealResponseDto {
             description = "List of contractors associated with the deal",
             implementation = DealContractorDto.class
     )
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<DealContractorDto> contractors;
 
+    @Schema(
+            description = "Deal version; the ETag of GET /deal/deal/{id} is derived from it",
+            example = "3"
+    )
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long version;
+
 }
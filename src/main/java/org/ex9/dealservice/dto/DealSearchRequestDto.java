@@ -158,4 +158,27 @@ public class DealSearchRequestDto {
     )
     private String sortDirection;
 
+    @Schema(
+            description = "Export every matching deal instead of a single page (export endpoints only; page and size are ignored)",
+            example = "false"
+    )
+    private boolean exportAll;
+
+    @Schema(
+            description = "Fields to return: SUMMARY (id, agreement number, dates, type and status, read with one query) " +
+                    "or FULL (default, also description, sums and contractors)",
+            example = "SUMMARY",
+            nullable = true
+    )
+    private DealView view;
+
+    @Schema(
+            description = "Total calculation: EXACT (default) returns a page with totalElements and totalPages, " +
+                    "ESTIMATED counts at most deal.search.estimate.cap deals and sets totalCapped when there are more, " +
+                    "NONE returns a slice without totals and skips the COUNT query",
+            example = "NONE",
+            nullable = true
+    )
+    private DealTotalMode totalMode;
+
 }
@@ -18,8 +18,8 @@ public class DealSumDto {
             example = "100000.00"
     )
     @Pattern(
-            regexp = "^\\d+\\.\\d{2}$",
-            message = "value must be a valid decimal number with two decimal places (100000.00)"
+            regexp = "^\\d{1,36}\\.\\d{2}$",
+            message = "value must be a valid decimal number with up to 36 integer digits and two decimal places (100000.00)"
     )
     private String value;
 
@@ -0,0 +1,18 @@
+package org.ex9.dealservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Способ подсчёта общего количества найденных сделок.
+ *
+ * @author Краковцев Артём
+ */
+@Schema(description = "How the total number of found deals is calculated: EXACT - COUNT query, " +
+        "ESTIMATED - count capped at deal.search.estimate.cap and cached briefly, NONE - no total, only whether there is a next page")
+public enum DealTotalMode {
+
+    EXACT,
+    ESTIMATED,
+    NONE
+
+}
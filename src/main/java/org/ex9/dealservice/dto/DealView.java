@@ -0,0 +1,16 @@
+package org.ex9.dealservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Набор полей сделки в результатах поиска.
+ *
+ * @author Краковцев Артём
+ */
+@Schema(description = "Deal fields returned by search: SUMMARY - id, agreement number, dates, type and status; FULL - also description, sums and contractors")
+public enum DealView {
+
+    SUMMARY,
+    FULL
+
+}
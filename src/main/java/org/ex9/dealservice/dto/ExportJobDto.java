@@ -0,0 +1,71 @@
+package org.ex9.dealservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.ex9.dealservice.model.ExportJobStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "State of a background deal export job")
+public class ExportJobDto {
+
+    @Schema(
+            description = "Unique identifier of the export job",
+            example = "5f0c4f1e-6a0b-4d5e-9a55-2f3b7c9e1d20"
+    )
+    private UUID id;
+
+    @Schema(
+            description = "Current job status",
+            example = "RUNNING"
+    )
+    private ExportJobStatus status;
+
+    @Schema(
+            description = "Number of deals written to the file so far",
+            example = "12000"
+    )
+    private long processedDeals;
+
+    @Schema(
+            description = "Failure reason for FAILED jobs",
+            nullable = true
+    )
+    private String error;
+
+    @Schema(
+            description = "Job creation date and time",
+            format = "date-time"
+    )
+    private LocalDateTime createDate;
+
+    @Schema(
+            description = "Date and time the export started",
+            format = "date-time",
+            nullable = true
+    )
+    private LocalDateTime startDate;
+
+    @Schema(
+            description = "Date and time the export finished",
+            format = "date-time",
+            nullable = true
+    )
+    private LocalDateTime finishDate;
+
+    @Schema(
+            description = "Date and time after which the file is deleted",
+            format = "date-time",
+            nullable = true
+    )
+    private LocalDateTime expireDate;
+
+}
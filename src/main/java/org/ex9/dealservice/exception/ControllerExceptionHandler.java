@@ -8,6 +8,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.ex9.dealservice.dto.ErrorResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -132,6 +133,77 @@ public class ControllerExceptionHandler {
         return new ErrorResponse(e.getMessage());
     }
 
+    @ExceptionHandler(ExportJobNotFondException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    @ApiResponse(
+            responseCode = "404",
+            description = "Export job or its file not found",
+            content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{" +
+                            "\"message\": \"Export job with id '5f0c4f1e-6a0b-4d5e-9a55-2f3b7c9e1d20' not found\", " +
+                            "\"timestamp\": \"2025-07-16T16:47:00\"" +
+                            "}")
+            )
+    )
+    public ErrorResponse handleExportJobNotFoundException(ExportJobNotFondException e) {
+        return new ErrorResponse(e.getMessage());
+    }
+
+    @ExceptionHandler(ExportJobNotReadyException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ApiResponse(
+            responseCode = "409",
+            description = "Export job is not finished",
+            content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{" +
+                            "\"message\": \"Export job '5f0c4f1e-6a0b-4d5e-9a55-2f3b7c9e1d20' is RUNNING\", " +
+                            "\"timestamp\": \"2025-07-16T16:47:00\"" +
+                            "}")
+            )
+    )
+    public ErrorResponse handleExportJobNotReadyException(ExportJobNotReadyException e) {
+        return new ErrorResponse(e.getMessage());
+    }
+
+    @ExceptionHandler({DealVersionMismatchException.class, ObjectOptimisticLockingFailureException.class})
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    @ApiResponse(
+            responseCode = "412",
+            description = "Deal was modified by another request (If-Match does not match the current ETag)",
+            content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{" +
+                            "\"message\": \"Deal with id 'c9ddcc2a-d927-4904-89a0-7e666aae1644' has been modified\", " +
+                            "\"timestamp\": \"2025-07-16T16:47:00\"" +
+                            "}")
+            )
+    )
+    public ErrorResponse handleDealVersionMismatchException(RuntimeException e) {
+        return e instanceof DealVersionMismatchException
+                ? new ErrorResponse(e.getMessage())
+                : new ErrorResponse("Deal has been modified by another request");
+    }
+
+    @ExceptionHandler(ExportJobRejectedException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ApiResponse(
+            responseCode = "503",
+            description = "Export queue is full",
+            content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorResponse.class),
+                    examples = @ExampleObject(value = "{\"message\": \"Too many export jobs in progress, try again later\", \"timestamp\": \"2025-07-16T16:47:00\"}")
+            )
+    )
+    public ErrorResponse handleExportJobRejectedException(ExportJobRejectedException e) {
+        return new ErrorResponse(e.getMessage());
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     @ApiResponse(
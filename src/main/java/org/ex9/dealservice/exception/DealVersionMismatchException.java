@@ -0,0 +1,9 @@
+package org.ex9.dealservice.exception;
+
+public class DealVersionMismatchException extends RuntimeException {
+
+    public DealVersionMismatchException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,9 @@
+package org.ex9.dealservice.exception;
+
+public class ExportJobNotFondException extends RuntimeException {
+
+    public ExportJobNotFondException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,9 @@
+package org.ex9.dealservice.exception;
+
+public class ExportJobNotReadyException extends RuntimeException {
+
+    public ExportJobNotReadyException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,9 @@
+package org.ex9.dealservice.exception;
+
+public class ExportJobRejectedException extends RuntimeException {
+
+    public ExportJobRejectedException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,299 @@
+package org.ex9.dealservice.export;
+
+import org.apache.arrow.compression.CommonsCompressionFactory;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.compression.CompressionUtil;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.ipc.message.IpcOption;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.ex9.dealservice.model.Deal;
+import org.ex9.dealservice.model.DealContractor;
+import org.ex9.dealservice.model.DealSum;
+import org.springframework.util.StreamUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Запись выгрузки сделок в колоночном формате Apache Arrow IPC (stream) со сжатием ZSTD.
+ * <p>Раскладка строк та же, что у остальных форматов: колонка {@code row_type} различает строки
+ * сделок, сумм и контрагентов, неприменимые к строке колонки остаются null. Тип, статус, валюта
+ * и вид строки хранятся со словарным кодированием; словари строятся заранее из справочников.
+ * Строки накапливаются в векторах и записываются порциями по {@value #BATCH_ROWS}.</p>
+ * <p>Сумма хранится как {@code decimal(38, 2)}: это наибольшая точность, которую читают все реализации Arrow.
+ * В БД колонка шире ({@code numeric(100, 2)}), поэтому API принимает суммы не длиннее 36 цифр до запятой,
+ * а сумма, не помещающаяся в колонку, прерывает выгрузку с {@link IllegalArgumentException}.</p>
+ * <p>Векторы и словари занимают память вне кучи, поэтому запись обязательно закрывается ({@link #close()}).</p>
+ * <p>Для работы Arrow на Java 17+ JVM запускается с {@code --add-opens=java.base/java.nio=ALL-UNNAMED}.</p>
+ *
+ * @author Краковцев Артём
+ */
+public class ArrowDealRowWriter implements DealRowWriter {
+
+    private static final int BATCH_ROWS = 8192;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int SUM_PRECISION = 38;
+    private static final int SUM_SCALE = 2;
+
+    private static final String ROW_DEAL = "deal";
+    private static final String ROW_SUM = "sum";
+    private static final String ROW_CONTRACTOR = "contractor";
+
+    private final BufferAllocator allocator;
+    private final DictionaryProvider.MapDictionaryProvider dictionaries = new DictionaryProvider.MapDictionaryProvider();
+    private final Map<Long, Map<String, Integer>> dictionaryIndexes = new HashMap<>();
+    private final VectorSchemaRoot root;
+    private final ArrowStreamWriter writer;
+
+    private final IntVector rowType;
+    private final VarCharVector dealId;
+    private final VarCharVector description;
+    private final VarCharVector agreementNumber;
+    private final DateDayVector agreementDate;
+    private final TimeStampMilliVector agreementStartDt;
+    private final DateDayVector availabilityDate;
+    private final IntVector dealType;
+    private final IntVector status;
+    private final DecimalVector sum;
+    private final IntVector currency;
+    private final BitVector isMain;
+    private final VarCharVector contractorName;
+    private final VarCharVector contractorInn;
+    private final VarCharVector contractorRoles;
+
+    private int rows;
+    private boolean closed;
+
+    /**
+     * @param out           поток, в который записывается выгрузка; не закрывается
+     * @param typeNames     наименования типов сделок для словаря
+     * @param statusNames   наименования статусов сделок для словаря
+     * @param currencyNames наименования валют для словаря
+     */
+    public ArrowDealRowWriter(OutputStream out, List<String> typeNames, List<String> statusNames,
+                              List<String> currencyNames) throws IOException {
+        this.allocator = new RootAllocator();
+        try {
+            List<Field> fields = new ArrayList<>();
+            fields.add(dictionaryField("row_type", 0L, List.of(ROW_DEAL, ROW_SUM, ROW_CONTRACTOR)));
+            fields.add(field("deal_id", ArrowType.Utf8.INSTANCE));
+            fields.add(field("description", ArrowType.Utf8.INSTANCE));
+            fields.add(field("agreement_number", ArrowType.Utf8.INSTANCE));
+            fields.add(field("agreement_date", new ArrowType.Date(DateUnit.DAY)));
+            fields.add(field("agreement_start_dt", new ArrowType.Timestamp(TimeUnit.MILLISECOND, null)));
+            fields.add(field("availability_date", new ArrowType.Date(DateUnit.DAY)));
+            fields.add(dictionaryField("deal_type", 1L, typeNames));
+            fields.add(dictionaryField("status", 2L, statusNames));
+            fields.add(field("sum", new ArrowType.Decimal(SUM_PRECISION, SUM_SCALE, 128)));
+            fields.add(dictionaryField("currency", 3L, currencyNames));
+            fields.add(field("is_main", ArrowType.Bool.INSTANCE));
+            fields.add(field("contractor_name", ArrowType.Utf8.INSTANCE));
+            fields.add(field("contractor_inn", ArrowType.Utf8.INSTANCE));
+            fields.add(field("contractor_roles", ArrowType.Utf8.INSTANCE));
+
+            this.root = VectorSchemaRoot.create(new Schema(fields), allocator);
+            this.rowType = (IntVector) root.getVector("row_type");
+            this.dealId = (VarCharVector) root.getVector("deal_id");
+            this.description = (VarCharVector) root.getVector("description");
+            this.agreementNumber = (VarCharVector) root.getVector("agreement_number");
+            this.agreementDate = (DateDayVector) root.getVector("agreement_date");
+            this.agreementStartDt = (TimeStampMilliVector) root.getVector("agreement_start_dt");
+            this.availabilityDate = (DateDayVector) root.getVector("availability_date");
+            this.dealType = (IntVector) root.getVector("deal_type");
+            this.status = (IntVector) root.getVector("status");
+            this.sum = (DecimalVector) root.getVector("sum");
+            this.currency = (IntVector) root.getVector("currency");
+            this.isMain = (BitVector) root.getVector("is_main");
+            this.contractorName = (VarCharVector) root.getVector("contractor_name");
+            this.contractorInn = (VarCharVector) root.getVector("contractor_inn");
+            this.contractorRoles = (VarCharVector) root.getVector("contractor_roles");
+            root.allocateNew();
+
+            var channel = Channels.newChannel(new BufferedOutputStream(StreamUtils.nonClosing(out), BUFFER_SIZE));
+            this.writer = new ArrowStreamWriter(root, dictionaries, channel, IpcOption.DEFAULT,
+                    CommonsCompressionFactory.INSTANCE, CompressionUtil.CodecType.ZSTD);
+            writer.start();
+        } catch (RuntimeException | IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void writeDeal(Deal deal) throws IOException {
+        int row = startRow(ROW_DEAL, deal);
+        setString(description, row, deal.getDescription());
+        setString(agreementNumber, row, deal.getAgreementNumber());
+        setDate(agreementDate, row, deal.getAgreementDate());
+        setDateTime(agreementStartDt, row, deal.getAgreementStartDt());
+        setDate(availabilityDate, row, deal.getAvailabilityDate());
+        setDictionary(dealType, row, deal.getType() != null ? deal.getType().getName() : null);
+        setDictionary(status, row, deal.getStatus() != null ? deal.getStatus().getName() : null);
+        endRow();
+    }
+
+    @Override
+    public void writeSum(Deal deal, DealSum dealSum) throws IOException {
+        int row = startRow(ROW_SUM, deal);
+        if (dealSum.getSum() != null) {
+            BigDecimal value = dealSum.getSum().setScale(SUM_SCALE, RoundingMode.HALF_UP);
+            if (value.precision() > SUM_PRECISION) {
+                throw new IllegalArgumentException("Deal sum of deal '" + deal.getId() + "' exceeds "
+                        + SUM_PRECISION + " digits and cannot be exported to Arrow decimal(" + SUM_PRECISION + ", " + SUM_SCALE + ")");
+            }
+            sum.setSafe(row, value);
+        }
+        setDictionary(currency, row, dealSum.getCurrency() != null ? dealSum.getCurrency().getName() : null);
+        if (dealSum.getIsMain() != null) {
+            isMain.setSafe(row, dealSum.getIsMain() ? 1 : 0);
+        }
+        endRow();
+    }
+
+    @Override
+    public void writeContractor(Deal deal, DealContractor contractor, String roles) throws IOException {
+        int row = startRow(ROW_CONTRACTOR, deal);
+        setString(contractorName, row, contractor.getContractor().getName());
+        setString(contractorInn, row, contractor.getContractor().getInn());
+        setString(contractorRoles, row, roles);
+        endRow();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        try {
+            if (rows > 0) {
+                writeBatch();
+            }
+            writer.end();
+        } finally {
+            close();
+        }
+    }
+
+    private int startRow(String type, Deal deal) {
+        setDictionary(rowType, rows, type);
+        setString(dealId, rows, deal.getId().toString());
+        return rows;
+    }
+
+    private void endRow() throws IOException {
+        rows++;
+        if (rows == BATCH_ROWS) {
+            writeBatch();
+        }
+    }
+
+    private void writeBatch() throws IOException {
+        root.setRowCount(rows);
+        writer.writeBatch();
+        root.getFieldVectors().forEach(FieldVector::reset);
+        rows = 0;
+    }
+
+    private Field field(String name, ArrowType type) {
+        return new Field(name, FieldType.nullable(type), null);
+    }
+
+    /**
+     * Создаёт поле со словарным кодированием: в векторе хранятся индексы значений словаря.
+     */
+    private Field dictionaryField(String name, long id, List<String> values) {
+        DictionaryEncoding encoding = new DictionaryEncoding(id, false, new ArrowType.Int(32, true));
+
+        VarCharVector dictionaryVector = new VarCharVector(name + "_dictionary", allocator);
+        Map<String, Integer> indexes = new HashMap<>();
+        dictionaryVector.allocateNew();
+        for (String value : values) {
+            if (value != null && !indexes.containsKey(value)) {
+                int index = indexes.size();
+                dictionaryVector.setSafe(index, value.getBytes(StandardCharsets.UTF_8));
+                indexes.put(value, index);
+            }
+        }
+        dictionaryVector.setValueCount(indexes.size());
+        dictionaries.put(new Dictionary(dictionaryVector, encoding));
+        dictionaryIndexes.put(id, indexes);
+
+        return new Field(name, new FieldType(true, encoding.getIndexType(), encoding), null);
+    }
+
+    private void setDictionary(IntVector vector, int row, String value) {
+        if (value == null) {
+            return;
+        }
+        Integer index = dictionaryIndexes.get(vector.getField().getDictionary().getId()).get(value);
+        if (index != null) {
+            vector.setSafe(row, index);
+        }
+    }
+
+    private static void setString(VarCharVector vector, int row, String value) {
+        if (value != null) {
+            vector.setSafe(row, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void setDate(DateDayVector vector, int row, LocalDate value) {
+        if (value != null) {
+            vector.setSafe(row, (int) value.toEpochDay());
+        }
+    }
+
+    private static void setDateTime(TimeStampMilliVector vector, int row, LocalDateTime value) {
+        if (value != null) {
+            vector.setSafe(row, value.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+    }
+
+    /**
+     * Закрывает поток Arrow и освобождает векторы, словари и аллокатор.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (writer != null) {
+            writer.close();
+        }
+        if (root != null) {
+            root.close();
+        }
+        for (long id : dictionaries.getDictionaryIds()) {
+            dictionaries.lookup(id).getVector().close();
+        }
+        allocator.close();
+    }
+
+}
@@ -0,0 +1,100 @@
+package org.ex9.dealservice.export;
+
+import org.ex9.dealservice.model.Deal;
+import org.ex9.dealservice.model.DealContractor;
+import org.ex9.dealservice.model.DealSum;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Запись выгрузки сделок в CSV (RFC 4180, UTF-8).
+ * <p>Колонки совпадают с excel выгрузкой, но ИД сделки проставляется в каждой строке,
+ * чтобы строки сумм и контрагентов можно было связать со сделкой без учёта порядка.</p>
+ *
+ * @author Краковцев Артём
+ */
+public class CsvDealRowWriter implements DealRowWriter {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Writer writer;
+    private final String[] row = new String[HEADERS.size()];
+
+    public CsvDealRowWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        HEADERS.toArray(row);
+        writeRow();
+    }
+
+    @Override
+    public void writeDeal(Deal deal) throws IOException {
+        row[0] = deal.getId().toString();
+        row[1] = deal.getDescription();
+        row[2] = deal.getAgreementNumber();
+        row[3] = Objects.toString(deal.getAgreementDate(), null);
+        row[4] = Objects.toString(deal.getAgreementStartDt(), null);
+        row[5] = Objects.toString(deal.getAvailabilityDate(), null);
+        row[6] = deal.getType() != null ? deal.getType().getName() : null;
+        row[7] = deal.getStatus() != null ? deal.getStatus().getName() : null;
+        writeRow();
+    }
+
+    @Override
+    public void writeSum(Deal deal, DealSum sum) throws IOException {
+        row[0] = deal.getId().toString();
+        row[8] = sum.getSum().toPlainString();
+        row[9] = sum.getCurrency() != null ? sum.getCurrency().getName() : null;
+        row[10] = sum.getIsMain() ? "Да" : "Нет";
+        writeRow();
+    }
+
+    @Override
+    public void writeContractor(Deal deal, DealContractor contractor, String roles) throws IOException {
+        row[0] = deal.getId().toString();
+        row[11] = contractor.getContractor().getName();
+        row[12] = contractor.getContractor().getInn();
+        row[13] = roles;
+        writeRow();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+
+    private void writeRow() throws IOException {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeValue(row[i]);
+            row[i] = null;
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeValue(String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+}
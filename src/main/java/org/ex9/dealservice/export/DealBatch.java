@@ -0,0 +1,24 @@
+package org.ex9.dealservice.export;
+
+import org.ex9.dealservice.model.Deal;
+import org.ex9.dealservice.model.DealContractor;
+import org.ex9.dealservice.model.DealSum;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Порция сделок для выгрузки вместе с уже загруженными связанными данными.
+ *
+ * @param deals              сделки в порядке выгрузки
+ * @param sumsByDeal         суммы по идентификатору сделки
+ * @param contractorsByDeal  контрагенты по идентификатору сделки
+ * @param rolesByContractor  роли через запятую по идентификатору контрагента сделки
+ * @author Краковцев Артём
+ */
+public record DealBatch(List<Deal> deals,
+                        Map<UUID, List<DealSum>> sumsByDeal,
+                        Map<UUID, List<DealContractor>> contractorsByDeal,
+                        Map<UUID, String> rolesByContractor) {
+}
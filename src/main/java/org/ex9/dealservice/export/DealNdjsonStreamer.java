@@ -0,0 +1,75 @@
+package org.ex9.dealservice.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import org.ex9.dealservice.dto.DealResponseDto;
+import org.ex9.dealservice.mapper.DealMapper;
+import org.ex9.dealservice.model.Deal;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Потоковая запись найденных сделок в формате NDJSON: одна {@link DealResponseDto} на строку.
+ *
+ * <p>Сделки читаются из курсора порциями; суммы, контрагенты и роли порции загружаются
+ * пакетно ({@link DealMapper#toDealResponseDtos}). После каждой порции поток сбрасывается клиенту,
+ * а блокирующая запись в поток ответа ограничивает скорость чтения из БД скоростью клиента.
+ * Первая порция маленькая, чтобы клиент быстро получил первые строки, дальше размер порции
+ * удваивается до {@value #MAX_CHUNK_SIZE}.</p>
+ *
+ * @author Краковцев Артём
+ */
+@Component
+@RequiredArgsConstructor
+public class DealNdjsonStreamer {
+
+    private static final int FIRST_CHUNK_SIZE = 16;
+    private static final int MAX_CHUNK_SIZE = 512;
+
+    private final DealMapper dealMapper;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Записывает сделки в поток.
+     *
+     * @param deals сделки из курсора
+     * @param out   поток ответа; не закрывается
+     * @return количество записанных сделок
+     */
+    public long write(Iterator<Deal> deals, OutputStream out) {
+        long written = 0;
+        ObjectWriter writer = objectMapper.writerFor(DealResponseDto.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(StreamUtils.nonClosing(out))) {
+            generator.setRootValueSeparator(null);
+            int chunkSize = FIRST_CHUNK_SIZE;
+            List<Deal> chunk = new ArrayList<>(MAX_CHUNK_SIZE);
+            while (deals.hasNext()) {
+                chunk.add(deals.next());
+                if (chunk.size() == chunkSize || !deals.hasNext()) {
+                    for (DealResponseDto dto : dealMapper.toDealResponseDtos(chunk)) {
+                        writer.writeValue(generator, dto);
+                        generator.writeRaw('\n');
+                    }
+                    generator.flush();
+                    written += chunk.size();
+                    chunk.clear();
+                    chunkSize = Math.min(chunkSize * 2, MAX_CHUNK_SIZE);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при потоковой выдаче сделок", e);
+        }
+        return written;
+    }
+
+}
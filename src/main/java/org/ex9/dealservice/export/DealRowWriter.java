@@ -0,0 +1,44 @@
+package org.ex9.dealservice.export;
+
+import org.ex9.dealservice.model.Deal;
+import org.ex9.dealservice.model.DealContractor;
+import org.ex9.dealservice.model.DealSum;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Построчная запись выгрузки сделок.
+ * <p>Все форматы используют одну развёрнутую раскладку: строка сделки, за ней строки её сумм
+ * и строки её контрагентов с перечнем ролей.</p>
+ * <p>Запись закрывается всегда, в том числе при ошибке выгрузки, чтобы освободить занятые ресурсы.</p>
+ *
+ * @author Краковцев Артём
+ */
+public interface DealRowWriter extends AutoCloseable {
+
+    List<String> HEADERS = List.of("ИД сделки", "Описание", "Номер договора", "Дата договора",
+            "Дата и время вступления соглашения в силу", "Срок действия сделки", "Тип сделки", "Статус сделки",
+            "Сумма сделки", "Наименование валюты", "Основная сумма сделки", "Наименование контрагента",
+            "ИНН контрагента", "Роли контрагента");
+
+    void writeDeal(Deal deal) throws IOException;
+
+    void writeSum(Deal deal, DealSum sum) throws IOException;
+
+    void writeContractor(Deal deal, DealContractor contractor, String roles) throws IOException;
+
+    /**
+     * Завершает запись: сбрасывает буферы в выходной поток. Сам поток не закрывается.
+     */
+    void finish() throws IOException;
+
+    /**
+     * Освобождает ресурсы записи. Повторный вызов, в том числе после {@link #finish()}, ничего не делает.
+     * Выходной поток не закрывается.
+     */
+    @Override
+    default void close() throws IOException {
+    }
+
+}
@@ -0,0 +1,75 @@
+package org.ex9.dealservice.export;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.ex9.dealservice.model.Deal;
+import org.ex9.dealservice.model.DealContractor;
+import org.ex9.dealservice.model.DealSum;
+import org.ex9.dealservice.util.ExcelColumnWidths;
+import org.ex9.dealservice.util.ExcelStyleUtil;
+
+/**
+ * Запись выгрузки сделок в лист excel документа с цветовым выделением строк сделок, сумм и контрагентов.
+ *
+ * @author Краковцев Артём
+ */
+public class ExcelDealRowWriter implements DealRowWriter {
+
+    private final Sheet sheet;
+    private final ExcelColumnWidths widths;
+    private final CellStyle dealStyle;
+    private final CellStyle sumStyle;
+    private final CellStyle contractorStyle;
+    private int rowNum;
+
+    public ExcelDealRowWriter(Workbook workbook, Sheet sheet, ExcelColumnWidths widths) {
+        this.sheet = sheet;
+        this.widths = widths;
+        this.dealStyle = ExcelStyleUtil.createDealRowStyle(workbook);
+        this.sumStyle = ExcelStyleUtil.createSumRowStyle(workbook);
+        this.contractorStyle = ExcelStyleUtil.createContractorRowStyle(workbook);
+
+        CellStyle headerStyle = ExcelStyleUtil.createHeaderStyle(workbook);
+        Row header = sheet.createRow(rowNum++);
+        for (int i = 0; i < HEADERS.size(); i++) {
+            widths.createStyledCell(header, i, HEADERS.get(i), headerStyle);
+        }
+    }
+
+    @Override
+    public void writeDeal(Deal deal) {
+        Row row = sheet.createRow(rowNum++);
+        widths.createStyledCell(row, 0, deal.getId().toString(), dealStyle);
+        widths.createStyledCell(row, 1, deal.getDescription(), dealStyle);
+        widths.createStyledCell(row, 2, deal.getAgreementNumber(), dealStyle);
+        widths.createStyledCell(row, 3, deal.getAgreementDate().toString(), dealStyle);
+        widths.createStyledCell(row, 4, deal.getAgreementStartDt().toString(), dealStyle);
+        widths.createStyledCell(row, 5, deal.getAvailabilityDate().toString(), dealStyle);
+        widths.createStyledCell(row, 6, deal.getType() != null ? deal.getType().getName() : "", dealStyle);
+        widths.createStyledCell(row, 7, deal.getStatus() != null ? deal.getStatus().getName() : "", dealStyle);
+    }
+
+    @Override
+    public void writeSum(Deal deal, DealSum sum) {
+        Row row = sheet.createRow(rowNum++);
+        widths.createStyledCell(row, 8, sum.getSum().toString(), sumStyle);
+        widths.createStyledCell(row, 9, sum.getCurrency() != null ? sum.getCurrency().getName() : "", sumStyle);
+        widths.createStyledCell(row, 10, sum.getIsMain() ? "Да" : "Нет", sumStyle);
+    }
+
+    @Override
+    public void writeContractor(Deal deal, DealContractor contractor, String roles) {
+        Row row = sheet.createRow(rowNum++);
+        widths.createStyledCell(row, 11, contractor.getContractor().getName(), contractorStyle);
+        widths.createStyledCell(row, 12, contractor.getContractor().getInn(), contractorStyle);
+        widths.createStyledCell(row, 13, roles, contractorStyle);
+    }
+
+    @Override
+    public void finish() {
+        widths.applyTo(sheet);
+    }
+
+}
@@ -0,0 +1,79 @@
+package org.ex9.dealservice.export;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Формат выгрузки сделок, выбирается по заголовку {@code Accept}.
+ *
+ * @author Краковцев Артём
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+
+    XLSX(ExportFormat.XLSX_VALUE, "xlsx"),
+    CSV(ExportFormat.CSV_VALUE, "csv"),
+    NDJSON(ExportFormat.NDJSON_VALUE, "ndjson"),
+    ARROW(ExportFormat.ARROW_VALUE, "arrows");
+
+    public static final String XLSX_VALUE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    public static final String CSV_VALUE = "text/csv";
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final String ARROW_VALUE = "application/vnd.apache.arrow.stream";
+
+    private final String mediaType;
+    private final String extension;
+
+    /**
+     * Тип содержимого ответа; для CSV явно указывается кодировка UTF-8.
+     */
+    public MediaType getContentType() {
+        MediaType type = MediaType.parseMediaType(mediaType);
+        return this == CSV ? new MediaType(type, StandardCharsets.UTF_8) : type;
+    }
+
+    public String getFileName() {
+        return "deals_export." + extension;
+    }
+
+    /**
+     * Определяет формат по заголовку {@code Accept} с учётом q-факторов; типы с {@code q=0} не допускаются.
+     * Если заголовок отсутствует или допускает любой тип, используется {@link #XLSX}.
+     *
+     * @param accept значение заголовка {@code Accept}
+     * @return первый поддерживаемый формат из допустимых клиентом
+     * @throws IllegalArgumentException если заголовок не разбирается как список типов
+     */
+    public static ExportFormat fromAccept(String accept) {
+        if (!StringUtils.hasText(accept)) {
+            return XLSX;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            throw new IllegalArgumentException("Invalid Accept header: " + e.getMessage(), e);
+        }
+        accepted = accepted.stream()
+                .filter(mediaType -> mediaType.getQualityValue() > 0)
+                .sorted(Comparator.comparingDouble(MediaType::getQualityValue).reversed())
+                .toList();
+        for (MediaType mediaType : accepted) {
+            for (ExportFormat format : values()) {
+                if (mediaType.includes(format.getContentType())) {
+                    return format;
+                }
+            }
+        }
+        return XLSX;
+    }
+
+}
@@ -0,0 +1,83 @@
+package org.ex9.dealservice.export;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import org.ex9.dealservice.model.Deal;
+import org.ex9.dealservice.model.DealContractor;
+import org.ex9.dealservice.model.DealSum;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+
+/**
+ * Запись выгрузки сделок в NDJSON: один JSON объект на строку.
+ * <p>Поле {@code type} указывает вид строки ({@code deal}, {@code sum}, {@code contractor}),
+ * поле {@code dealId} связывает суммы и контрагентов со сделкой.</p>
+ *
+ * @author Краковцев Артём
+ */
+public class NdjsonDealRowWriter implements DealRowWriter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactoryBuilder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .rootValueSeparator((String) null)
+            .build();
+
+    private final JsonGenerator generator;
+
+    public NdjsonDealRowWriter(OutputStream out) throws IOException {
+        this.generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+    }
+
+    @Override
+    public void writeDeal(Deal deal) throws IOException {
+        startRow("deal", deal);
+        generator.writeStringField("description", deal.getDescription());
+        generator.writeStringField("agreementNumber", deal.getAgreementNumber());
+        generator.writeStringField("agreementDate", Objects.toString(deal.getAgreementDate(), null));
+        generator.writeStringField("agreementStartDt", Objects.toString(deal.getAgreementStartDt(), null));
+        generator.writeStringField("availabilityDate", Objects.toString(deal.getAvailabilityDate(), null));
+        generator.writeStringField("dealType", deal.getType() != null ? deal.getType().getName() : null);
+        generator.writeStringField("status", deal.getStatus() != null ? deal.getStatus().getName() : null);
+        endRow();
+    }
+
+    @Override
+    public void writeSum(Deal deal, DealSum sum) throws IOException {
+        startRow("sum", deal);
+        generator.writeNumberField("sum", sum.getSum());
+        generator.writeStringField("currency", sum.getCurrency() != null ? sum.getCurrency().getName() : null);
+        generator.writeBooleanField("isMain", sum.getIsMain());
+        endRow();
+    }
+
+    @Override
+    public void writeContractor(Deal deal, DealContractor contractor, String roles) throws IOException {
+        startRow("contractor", deal);
+        generator.writeStringField("name", contractor.getContractor().getName());
+        generator.writeStringField("inn", contractor.getContractor().getInn());
+        generator.writeStringField("roles", roles);
+        endRow();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        generator.close();
+    }
+
+    private void startRow(String type, Deal deal) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", type);
+        generator.writeStringField("dealId", deal.getId().toString());
+    }
+
+    private void endRow() throws IOException {
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+}
@@ -0,0 +1,184 @@
+package org.ex9.dealservice.export;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.ex9.dealservice.mapper.DealMapper;
+import org.ex9.dealservice.model.Deal;
+import org.ex9.dealservice.repository.DealRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import java.util.function.LongConsumer;
+
+/**
+ * Параллельная выгрузка всех сделок, удовлетворяющих фильтрам.
+ *
+ * <p>Вызывающая транзакция (REPEATABLE READ) экспортирует свой снимок через {@code pg_export_snapshot()}
+ * и по мере выгрузки находит границы партиций по возрастанию идентификатора: из БД читается только
+ * идентификатор последней сделки каждой партиции, а не весь список. Каждая партиция {@code (after, upTo]}
+ * загружается вместе с суммами, контрагентами и ролями в ограниченном {@link ForkJoinPool}
+ * в собственной read-only транзакции на отдельном соединении, импортировавшей тот же снимок.
+ * Поэтому все партиции видят одинаковое состояние БД.</p>
+ *
+ * <p>Готовые партиции записываются в выходной поток строго по порядку в вызывающем потоке:
+ * потоковый excel документ не потокобезопасен. Одновременно загружается не больше
+ * {@code 2 × parallelism} партиций, чтобы память не росла с размером выгрузки.</p>
+ *
+ * <p>Каждая параллельная выгрузка занимает {@code parallelism + 1} соединений, поэтому одновременно
+ * выполняется не больше {@code deal.export.parallel.max-concurrent} таких выгрузок. Если свободного места нет,
+ * выгрузка сортирована не по умолчанию или параллельная выгрузка отключена, {@link #tryExport} возвращает
+ * {@code false}, и вызывающий код читает сделки курсором.</p>
+ *
+ * @author Краковцев Артём
+ */
+@Component
+@Log4j2
+public class ParallelDealExporter {
+
+    private final DealRepository dealRepository;
+    private final DealMapper dealMapper;
+    private final TransactionTemplate partitionTransaction;
+    private final ForkJoinPool pool;
+    private final int partitionSize;
+    private final int maxInFlight;
+    private final boolean enabled;
+
+    /**Ограничивает число одновременных параллельных выгрузок, каждая из которых занимает несколько соединений*/
+    private final Semaphore exports;
+
+    public ParallelDealExporter(DealRepository dealRepository,
+                                DealMapper dealMapper,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${deal.export.parallel.enabled:false}") boolean enabled,
+                                @Value("${deal.export.parallel.parallelism:4}") int parallelism,
+                                @Value("${deal.export.parallel.partition-size:1000}") int partitionSize,
+                                @Value("${deal.export.parallel.max-concurrent:1}") int maxConcurrent) {
+        this.dealRepository = dealRepository;
+        this.dealMapper = dealMapper;
+        this.enabled = enabled;
+        this.exports = new Semaphore(Math.max(1, maxConcurrent));
+        this.partitionSize = partitionSize;
+        int threads = Math.max(1, Math.min(parallelism, Runtime.getRuntime().availableProcessors()));
+        this.maxInFlight = threads * 2;
+        this.pool = new ForkJoinPool(threads);
+
+        this.partitionTransaction = new TransactionTemplate(transactionManager);
+        this.partitionTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.partitionTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.partitionTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Выгружает все сделки, удовлетворяющие спецификации, если параллельная выгрузка возможна.
+     * Должен вызываться в транзакции уровня REPEATABLE READ, которая остаётся открытой до конца выгрузки.
+     *
+     * <p>Сделки выгружаются по возрастанию идентификатора, поэтому выгрузки с явной сортировкой
+     * не распараллеливаются.</p>
+     *
+     * @param specification условия поиска
+     * @param sort          сортировка
+     * @param format        формат выгрузки
+     * @param out           поток, в который записывается выгрузка
+     * @param progress      получает количество записанных сделок после каждой партиции
+     * @return {@code false}, если выгрузка не выполнялась: параллельная выгрузка отключена,
+     *         задана сортировка или достигнут предел одновременных параллельных выгрузок
+     */
+    public boolean tryExport(Specification<Deal> specification, Sort sort, ExportFormat format, OutputStream out, LongConsumer progress) {
+        if (!enabled || sort.isSorted()) {
+            return false;
+        }
+        if (!exports.tryAcquire()) {
+            log.debug("Parallel export limit reached, falling back to cursor export");
+            return false;
+        }
+        try {
+            String snapshotId = dealRepository.exportSnapshot();
+            log.debug("Parallel export from snapshot '{}'", snapshotId);
+
+            PartitionIterator partitions = new PartitionIterator(specification, snapshotId);
+            try {
+                dealMapper.exportBatches(partitions, format, out, progress);
+            } finally {
+                partitions.cancel();
+            }
+            return true;
+        } finally {
+            exports.release();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private DealBatch loadPartition(Specification<Deal> specification, UUID after, UUID upTo, String snapshotId) {
+        return partitionTransaction.execute(status -> {
+            dealRepository.importSnapshot(snapshotId);
+            return dealMapper.loadBatch(dealRepository.findPartition(specification, after, upTo));
+        });
+    }
+
+    /**
+     * Отдаёт партиции по порядку, заранее запуская загрузку следующих.
+     * Границы партиций запрашиваются в вызывающей транзакции по мере необходимости.
+     */
+    private final class PartitionIterator implements Iterator<DealBatch> {
+
+        private final Specification<Deal> specification;
+        private final String snapshotId;
+        private final Deque<ForkJoinTask<DealBatch>> inFlight = new ArrayDeque<>();
+        private UUID lastBound;
+        private boolean exhausted;
+
+        private PartitionIterator(Specification<Deal> specification, String snapshotId) {
+            this.specification = specification;
+            this.snapshotId = snapshotId;
+        }
+
+        @Override
+        public boolean hasNext() {
+            submitNext();
+            return !inFlight.isEmpty();
+        }
+
+        @Override
+        public DealBatch next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return inFlight.poll().join();
+        }
+
+        private void submitNext() {
+            while (inFlight.size() < maxInFlight && !exhausted) {
+                UUID after = lastBound;
+                UUID upTo = dealRepository.findPartitionBound(specification, after, partitionSize);
+                exhausted = upTo == null;
+                lastBound = upTo;
+                inFlight.add(pool.submit(() -> loadPartition(specification, after, upTo, snapshotId)));
+            }
+        }
+
+        private void cancel() {
+            inFlight.forEach(task -> task.cancel(true));
+            inFlight.clear();
+        }
+
+    }
+
+}
@@ -1,10 +1,12 @@
 package org.ex9.dealservice.listener;
 
 import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.ex9.dealservice.dto.rabbit.ContractorDto;
 import org.ex9.dealservice.exception.DealContractorNotFondException;
+import org.ex9.dealservice.metrics.ContractorMetrics;
 import org.ex9.dealservice.model.InboxEvent;
 import org.ex9.dealservice.repository.InboxEventRepository;
 import org.ex9.dealservice.service.DealContractorService;
@@ -38,6 +40,7 @@ public class ContractorListener {
 
     private final DealContractorService dealContractorService;
     private final InboxEventRepository inboxEventRepository;
+    private final ContractorMetrics contractorMetrics;
 
     /**
      * Логика обработки:
@@ -47,6 +50,7 @@ public class ContractorListener {
      *   <li>Если контрагент не найден — пишет запись в inbox и подтверждает (ACK), чтобы не застревало в очереди.</li>
      *   <li>Если возникает ошибка (например, проблемы с БД) — сообщение отклоняется (REJECT) и попадает в DLQ.</li>
      * </ul>
+     * Результат обработки каждого сообщения учитывается в {@link ContractorMetrics}.
      */
     @RabbitListener(queues = "${spring.rabbitmq.queues.contractor}", containerFactory = "rabbitListenerContainerFactory")
     public void handle(ContractorDto contractorDto,
@@ -56,11 +60,14 @@ public class ContractorListener {
                        @Header(name = "x-death", required = false) Map<String, Object> xDeathHeader) throws IOException {
         log.info("Received contractor: {}", contractorDto);
 
+        Timer.Sample sample = contractorMetrics.startProcessing();
         UUID msgId = UUID.fromString(messageId);
         try {
             if (inboxEventRepository.existsById(msgId)) {
                 log.info("Skip duplicate message {}", msgId);
                 channel.basicAck(deliveryTag, false);
+                contractorMetrics.duplicate();
+                contractorMetrics.stopProcessing(sample, ContractorMetrics.OUTCOME_DUPLICATE);
                 return;
             }
 
@@ -71,28 +78,36 @@ public class ContractorListener {
             log.info("Updated contractor: {}", contractorDto);
 
             channel.basicAck(deliveryTag, false);
+            contractorMetrics.recordLag(contractorDto.getModifyDateTime());
+            contractorMetrics.stopProcessing(sample, ContractorMetrics.OUTCOME_SUCCESS);
         } catch (DealContractorNotFondException ex) {
             log.warn("DealContractorNotFondException: {}", ex.getMessage());
             inboxEventRepository.save(new InboxEvent(msgId, "ContractorUpdate", LocalDateTime.now()));
             channel.basicAck(deliveryTag, false);
+            contractorMetrics.notFound();
+            contractorMetrics.stopProcessing(sample, ContractorMetrics.OUTCOME_NOT_FOUND);
         } catch (RuntimeException e) {
-            if (checkRetryCount(xDeathHeader)) {
+            long deathCount = getDeathCount(xDeathHeader);
+            if (deathCount >= retryCount) {
                 log.warn("Maximum retry for message: {}", msgId);
                 channel.basicAck(deliveryTag, false);
+                contractorMetrics.dropped(deathCount);
+                contractorMetrics.stopProcessing(sample, ContractorMetrics.OUTCOME_DROPPED);
             } else {
                 log.error("Error while updating contractor: {}", e.getMessage());
                 channel.basicReject(deliveryTag, false);
+                contractorMetrics.retry(deathCount);
+                contractorMetrics.stopProcessing(sample, ContractorMetrics.OUTCOME_RETRY);
             }
         }
     }
 
-    private boolean checkRetryCount(Map<String, Object> xDeathHeader) {
-        if (xDeathHeader != null && !xDeathHeader.isEmpty()) {
-            Long count = (Long) xDeathHeader.get("count");
-            return count >= retryCount;
+    private long getDeathCount(Map<String, Object> xDeathHeader) {
+        if (xDeathHeader != null && xDeathHeader.get("count") instanceof Number count) {
+            return count.longValue();
         }
 
-        return false;
+        return 0;
     }
 
 }
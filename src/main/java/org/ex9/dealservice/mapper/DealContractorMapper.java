@@ -3,6 +3,7 @@ package org.ex9.dealservice.mapper;
 import lombok.RequiredArgsConstructor;
 import org.ex9.dealservice.dto.DealContractorSaveRequestDto;
 import org.ex9.dealservice.exception.DealNotFondException;
+import org.ex9.dealservice.model.Contractor;
 import org.ex9.dealservice.model.DealContractor;
 import org.ex9.dealservice.repository.DealRepository;
 import org.springframework.stereotype.Component;
@@ -26,20 +27,19 @@ public class DealContractorMapper {
     /**
      * Преобразует DTO в нового контрагента сделки.
      *
-     * @param request DTO с данными контрагента
+     * @param request    DTO с данными контрагента
+     * @param contractor контрагент из справочника
      * @return сущность {@link DealContractor}
      * @throws DealNotFondException если сделка не найдена
      */
-    public DealContractor toNewDealContractor(DealContractorSaveRequestDto request) {
+    public DealContractor toNewDealContractor(DealContractorSaveRequestDto request, Contractor contractor) {
 
         var deal = dealRepository.findByIdAndIsActiveTrue(request.getDealId())
                 .orElseThrow(() -> new DealNotFondException("Deal with id " + request.getDealId() + " not found"));
 
         return DealContractor.builder()
                 .deal(deal)
-                .contractorId(request.getContractorId())
-                .name(request.getName())
-                .inn(request.getInn())
+                .contractor(contractor)
                 .main(request.isMain())
                 .createDate(LocalDate.now())
                 .createUserId(null)
@@ -49,23 +49,23 @@ public class DealContractorMapper {
     /**
      * Обновляет существующего контрагента сделки на основе данных из DTO.
      *
-     * @param request    DTO с обновлёнными данными контрагента
-     * @param contractor текущая сущность контрагента
+     * @param request        DTO с обновлёнными данными контрагента
+     * @param dealContractor текущая сущность контрагента сделки
+     * @param contractor     контрагент из справочника
      * @return обновлённая сущность {@link DealContractor}
      * @throws DealNotFondException если сделка не найдена
      */
-    public DealContractor toUpdateDealContractor(DealContractorSaveRequestDto request, DealContractor contractor) {
+    public DealContractor toUpdateDealContractor(DealContractorSaveRequestDto request, DealContractor dealContractor,
+                                                 Contractor contractor) {
         var deal = dealRepository.findByIdAndIsActiveTrue(request.getDealId())
                 .orElseThrow(() -> new DealNotFondException("Deal with id " + request.getDealId() + " not found"));
-        contractor.setDeal(deal);
-        contractor.setContractorId(request.getContractorId());
-        contractor.setName(request.getName());
-        contractor.setInn(request.getInn());
-        contractor.setMain(request.isMain());
-        contractor.setModifyDate(LocalDateTime.now());
-        contractor.setModifyUserId(null);
+        dealContractor.setDeal(deal);
+        dealContractor.setContractor(contractor);
+        dealContractor.setMain(request.isMain());
+        dealContractor.setModifyDate(LocalDateTime.now());
+        dealContractor.setModifyUserId(null);
 
-        return contractor;
+        return dealContractor;
     }
 
 }
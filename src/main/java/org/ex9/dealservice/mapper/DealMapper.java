@@ -1,11 +1,8 @@
 package org.ex9.dealservice.mapper;
 
 import lombok.RequiredArgsConstructor;
-import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.ex9.dealservice.dto.ContractorRoleDto;
 import org.ex9.dealservice.dto.DealContractorDto;
 import org.ex9.dealservice.dto.DealResponseDto;
@@ -16,8 +13,16 @@ import org.ex9.dealservice.dto.DealTypeDto;
 import org.ex9.dealservice.exception.CurrencyNotFondException;
 import org.ex9.dealservice.exception.DealStatusNotFondException;
 import org.ex9.dealservice.exception.DealTypeNotFondException;
+import org.ex9.dealservice.export.ArrowDealRowWriter;
+import org.ex9.dealservice.export.CsvDealRowWriter;
+import org.ex9.dealservice.export.DealBatch;
+import org.ex9.dealservice.export.DealRowWriter;
+import org.ex9.dealservice.export.ExcelDealRowWriter;
+import org.ex9.dealservice.export.ExportFormat;
+import org.ex9.dealservice.export.NdjsonDealRowWriter;
 import org.ex9.dealservice.model.ContractorRole;
 import org.ex9.dealservice.model.ContractorToRole;
+import org.ex9.dealservice.model.Currency;
 import org.ex9.dealservice.model.Deal;
 import org.ex9.dealservice.model.DealContractor;
 import org.ex9.dealservice.model.DealStatus;
@@ -26,19 +31,24 @@ import org.ex9.dealservice.model.DealType;
 import org.ex9.dealservice.repository.ContractorToRoleRepository;
 import org.ex9.dealservice.repository.CurrencyRepository;
 import org.ex9.dealservice.repository.DealContractorRepository;
+import org.ex9.dealservice.repository.DealRow;
 import org.ex9.dealservice.repository.DealStatusRepository;
 import org.ex9.dealservice.repository.DealSumRepository;
 import org.ex9.dealservice.repository.DealTypeRepository;
-import org.ex9.dealservice.util.ExcelStyleUtil;
-import org.springframework.data.domain.Page;
+import org.ex9.dealservice.util.ExcelColumnWidths;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
 
 /**
@@ -60,6 +70,16 @@ public class DealMapper {
     private final CurrencyRepository currencyRepository;
 
     private static final String DEFAULT_STATUS = "DRAFT";
+    private static final int EXCEL_ROW_WINDOW = 100;
+    private static final int EXPORT_BATCH_SIZE = 1000;
+
+    /**Минимальная ширина колонки excel в символах*/
+    @Value("${deal.export.excel.min-column-width:8}")
+    private int minColumnWidth;
+
+    /**Максимальная ширина колонки excel в символах, более длинные значения не расширяют колонку*/
+    @Value("${deal.export.excel.max-column-width:60}")
+    private int maxColumnWidth;
 
     /**
      * Преобразует сущность сделки в DTO ответа.
@@ -83,80 +103,253 @@ public class DealMapper {
                 .status(toDealStatusDto(deal.getStatus()))
                 .sum(toDealSumDto(deal.getId()))
                 .contractors(toDealContractorDtos(deal.getId()))
+                .version(deal.getVersion())
                 .build();
     }
 
     /**
-     * Преобразует страницу сделок в массив байт excel файла.
+     * Преобразует строку поиска в DTO ответа без сумм и контрагентов.
      *
-     * @param deals страница сделок
-     * @return массив байт excel файла
+     * @param row строка поиска
+     * @return DTO сделки; {@code sum} и {@code contractors} не заполнены
      */
-    public byte[] toExcel(Page<Deal> deals) {
-        try (Workbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet();
+    public DealResponseDto toSummaryDto(DealRow row) {
+        return DealResponseDto.builder()
+                .id(row.id())
+                .description(row.description())
+                .agreementNumber(row.agreementNumber())
+                .agreementDate(row.agreementDate())
+                .agreementStartDt(row.agreementStartDt())
+                .availabilityDate(row.availabilityDate())
+                .closeDt(row.closeDt())
+                .type(row.typeId() == null ? null : new DealTypeDto(row.typeId(), row.typeName()))
+                .status(row.statusId() == null ? null : new DealStatusDto(row.statusId(), row.statusName()))
+                .build();
+    }
 
-            CellStyle headerStyle = ExcelStyleUtil.createHeaderStyle(workbook);
-            CellStyle dealStyle = ExcelStyleUtil.createDealRowStyle(workbook);
-            CellStyle sumStyle = ExcelStyleUtil.createSumRowStyle(workbook);
-            CellStyle contractorStyle = ExcelStyleUtil.createContractorRowStyle(workbook);
+    /**
+     * Преобразует несколько сделок в DTO ответа, загружая суммы, контрагентов и их роли
+     * тремя запросами на все сделки вместо запросов на каждую сделку.
+     *
+     * @param deals сделки
+     * @return DTO сделок в том же порядке
+     */
+    public List<DealResponseDto> toDealResponseDtos(List<Deal> deals) {
+        return withRelations(deals.stream()
+                .map(deal -> DealResponseDto.builder()
+                        .id(deal.getId())
+                        .description(deal.getDescription())
+                        .agreementNumber(deal.getAgreementNumber())
+                        .agreementDate(deal.getAgreementDate())
+                        .agreementStartDt(deal.getAgreementStartDt())
+                        .availabilityDate(deal.getAvailabilityDate())
+                        .closeDt(deal.getCloseDt())
+                        .type(toDealTypeDto(deal.getType()))
+                        .status(toDealStatusDto(deal.getStatus()))
+                        .version(deal.getVersion())
+                        .build())
+                .toList());
+    }
 
-            Row header = sheet.createRow(0);
+    /**
+     * Преобразует строки поиска в полные DTO ответа, загружая суммы, контрагентов и их роли
+     * тремя запросами на все строки.
+     *
+     * @param rows строки поиска
+     * @return DTO сделок в том же порядке
+     */
+    public List<DealResponseDto> toDealResponseDtosFromRows(List<DealRow> rows) {
+        return withRelations(rows.stream().map(this::toSummaryDto).toList());
+    }
 
-            var headerText = List.of("ИД сделки", "Описание", "Номер договора", "Дата договора",
-                    "Дата и время вступления соглашения в силу", "Срок действия сделки", "Тип сделки", "Статус сделки",
-                    "Сумма сделки", "Наименование валюты", "Основная сумма сделки", "Наименование контрагента",
-                    "ИНН контрагента", "Роли контрагента");
+    /**
+     * Заполняет суммы и контрагентов с ролями в DTO сделок тремя запросами на все сделки.
+     */
+    private List<DealResponseDto> withRelations(List<DealResponseDto> deals) {
+        if (deals.isEmpty()) {
+            return List.of();
+        }
+        List<UUID> dealIds = deals.stream().map(DealResponseDto::getId).toList();
+
+        Map<UUID, List<DealSumDto>> sumsByDeal = dealSumRepository.findAllByDealIdInAndIsActiveTrue(dealIds).stream()
+                .collect(Collectors.groupingBy(sum -> sum.getDeal().getId(),
+                        Collectors.mapping(sum -> new DealSumDto(sum.getSum().toString(), sum.getCurrency().getId()), Collectors.toList())));
+
+        List<DealContractor> contractors = dealContractorRepository.findAllByDealIdInAndIsActiveTrue(dealIds);
+        Map<UUID, List<ContractorRoleDto>> rolesByContractor = contractors.isEmpty()
+                ? Map.of()
+                : contractorToRoleRepository.findAllByIdContractorIdInAndIsActiveTrue(
+                                contractors.stream().map(DealContractor::getId).toList())
+                        .stream()
+                        .filter(contractorToRole -> contractorToRole.getRole() != null && contractorToRole.getRole().getIsActive())
+                        .collect(Collectors.groupingBy(contractorToRole -> contractorToRole.getId().getContractorId(),
+                                Collectors.mapping(contractorToRole -> toContractorRoleDto(contractorToRole.getRole()), Collectors.toList())));
+        Map<UUID, List<DealContractorDto>> contractorsByDeal = contractors.stream()
+                .collect(Collectors.groupingBy(contractor -> contractor.getDeal().getId(),
+                        Collectors.mapping(contractor -> toDealContractorDto(contractor,
+                                rolesByContractor.getOrDefault(contractor.getId(), List.of())), Collectors.toList())));
+
+        for (DealResponseDto deal : deals) {
+            deal.setSum(sumsByDeal.getOrDefault(deal.getId(), List.of()));
+            deal.setContractors(contractorsByDeal.getOrDefault(deal.getId(), List.of()));
+        }
+        return deals;
+    }
 
-            for (int i = 0; i < headerText.size(); i++) {
-                ExcelStyleUtil.createStyledCell(header, i, headerText.get(i), headerStyle);
-            }
+    /**
+     * Записывает сделки в выходной поток в указанном формате.
+     *
+     * @param deals    сделки для экспорта
+     * @param format   формат выгрузки
+     * @param out      поток, в который записывается выгрузка
+     * @param progress получает количество уже записанных сделок после каждой порции
+     */
+    public void export(Iterable<Deal> deals, ExportFormat format, OutputStream out, LongConsumer progress) {
+        exportBatches(loadBatches(deals), format, out, progress);
+    }
 
-            int rowNum = 1;
-
-            for (Deal deal : deals) {
-                Row row1 = sheet.createRow(rowNum++);
-                ExcelStyleUtil.createStyledCell(row1, 0, deal.getId().toString(), dealStyle);
-                ExcelStyleUtil.createStyledCell(row1, 1, deal.getDescription(), dealStyle);
-                ExcelStyleUtil.createStyledCell(row1, 2, deal.getAgreementNumber(), dealStyle);
-                ExcelStyleUtil.createStyledCell(row1, 3, deal.getAgreementDate().toString(), dealStyle);
-                ExcelStyleUtil.createStyledCell(row1, 4, deal.getAgreementStartDt().toString(), dealStyle);
-                ExcelStyleUtil.createStyledCell(row1, 5, deal.getAvailabilityDate().toString(), dealStyle);
-                ExcelStyleUtil.createStyledCell(row1, 6, deal.getType() != null ? deal.getType().getName() : "", dealStyle);
-                ExcelStyleUtil.createStyledCell(row1, 7, deal.getStatus() != null ? deal.getStatus().getName() : "", dealStyle);
-
-                var sums = dealSumRepository.findAllByDealIdAndIsActiveTrue(deal.getId());
-                for (DealSum sum : sums) {
-                    Row row2 = sheet.createRow(rowNum++);
-                    ExcelStyleUtil.createStyledCell(row2, 8, sum.getSum().toString(), sumStyle);
-                    ExcelStyleUtil.createStyledCell(row2, 9, sum.getCurrency() != null ? sum.getCurrency().getName() : "", sumStyle);
-                    ExcelStyleUtil.createStyledCell(row2, 10, sum.getIsMain() ? "Да" : "Нет", sumStyle);
-                }
+    /**
+     * Записывает в выходной поток порции сделок с заранее загруженными связанными данными.
+     *
+     * @param batches  порции сделок в порядке выгрузки
+     * @param format   формат выгрузки
+     * @param out      поток, в который записывается выгрузка
+     * @param progress получает количество уже записанных сделок после каждой порции
+     */
+    public void exportBatches(Iterator<DealBatch> batches, ExportFormat format, OutputStream out, LongConsumer progress) {
+        if (format == ExportFormat.XLSX) {
+            toExcel(batches, out, progress);
+            return;
+        }
+        try {
+            DealRowWriter writer = switch (format) {
+                case CSV -> new CsvDealRowWriter(out);
+                case ARROW -> toArrowWriter(out);
+                default -> new NdjsonDealRowWriter(out);
+            };
+            writeBatches(batches, writer, progress);
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка при экспорте " + format, e);
+        }
+    }
 
-                var contractors = dealContractorRepository.findAllByDealIdAndIsActiveTrue(deal.getId());
-                for (DealContractor contractor : contractors) {
-                    Row row3 = sheet.createRow(rowNum++);
-                    ExcelStyleUtil.createStyledCell(row3, 11, contractor.getName(), contractorStyle);
-                    ExcelStyleUtil.createStyledCell(row3, 12, contractor.getInn(), contractorStyle);
-                    var roles = contractorToRoleRepository.findAllByIdContractorIdAndIsActiveTrue(contractor.getId())
-                            .stream()
-                            .map(ContractorToRole::getRole)
-                            .filter(role -> role != null && role.getIsActive())
-                            .map(ContractorRole::getName)
-                            .collect(Collectors.joining(", "));
-                    ExcelStyleUtil.createStyledCell(row3, 13, roles, contractorStyle);
-                }
-            }
+    /**
+     * Создаёт запись в формате Arrow со словарями типов, статусов и валют из справочников.
+     * В словари попадают и неактивные значения, так как на них могут ссылаться сделки.
+     */
+    private DealRowWriter toArrowWriter(OutputStream out) throws IOException {
+        return new ArrowDealRowWriter(out,
+                dealTypeRepository.findAll().stream().map(DealType::getName).toList(),
+                dealStatusRepository.findAll().stream().map(DealStatus::getName).toList(),
+                currencyRepository.findAll().stream().map(Currency::getName).toList());
+    }
 
-            for (int i = 0; i < header.getPhysicalNumberOfCells(); i++) {
-                sheet.autoSizeColumn(i);
-            }
+    /**
+     * Загружает суммы, контрагентов и их роли для порции сделок тремя запросами
+     * и группирует их по сделкам.
+     *
+     * @param deals сделки порции
+     * @return порция со связанными данными
+     */
+    public DealBatch loadBatch(List<Deal> deals) {
+        if (deals.isEmpty()) {
+            return new DealBatch(deals, Map.of(), Map.of(), Map.of());
+        }
+        List<UUID> dealIds = deals.stream().map(Deal::getId).toList();
+
+        Map<UUID, List<DealSum>> sumsByDeal = dealSumRepository.findAllByDealIdInAndIsActiveTrue(dealIds).stream()
+                .collect(Collectors.groupingBy(sum -> sum.getDeal().getId()));
+
+        List<DealContractor> contractors = dealContractorRepository.findAllByDealIdInAndIsActiveTrue(dealIds);
+        Map<UUID, List<DealContractor>> contractorsByDeal = contractors.stream()
+                .collect(Collectors.groupingBy(contractor -> contractor.getDeal().getId()));
+
+        Map<UUID, String> rolesByContractor = contractors.isEmpty()
+                ? Map.of()
+                : contractorToRoleRepository.findAllByIdContractorIdInAndIsActiveTrue(
+                                contractors.stream().map(DealContractor::getId).toList())
+                        .stream()
+                        .filter(contractorToRole -> contractorToRole.getRole() != null && contractorToRole.getRole().getIsActive())
+                        .collect(Collectors.groupingBy(contractorToRole -> contractorToRole.getId().getContractorId(),
+                                Collectors.mapping(contractorToRole -> contractorToRole.getRole().getName(),
+                                        Collectors.joining(", "))));
+
+        return new DealBatch(deals, sumsByDeal, contractorsByDeal, rolesByContractor);
+    }
+
+    /**
+     * Записывает сделки в excel файл напрямую в выходной поток.
+     *
+     * <p>Используется потоковый {@link SXSSFWorkbook}: в памяти держится только окно из
+     * {@value #EXCEL_ROW_WINDOW} строк, остальные сбрасываются во временный файл,
+     * поэтому потребление памяти не зависит от количества сделок. Ширина колонок считается
+     * по длине значений при записи строк ({@link ExcelColumnWidths}) в пределах
+     * {@code deal.export.excel.min-column-width}..{@code max-column-width}.</p>
+     */
+    private void toExcel(Iterator<DealBatch> batches, OutputStream out, LongConsumer progress) {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try (workbook) {
+            SXSSFSheet sheet = workbook.createSheet();
+            var widths = new ExcelColumnWidths(DealRowWriter.HEADERS.size(), minColumnWidth, maxColumnWidth);
+
+            writeBatches(batches, new ExcelDealRowWriter(workbook, sheet, widths), progress);
 
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
             workbook.write(out);
-            return out.toByteArray();
         } catch (IOException e) {
             throw new RuntimeException("Ошибка при экспорте Excel", e);
+        } finally {
+            workbook.dispose();
+        }
+    }
+
+    /**
+     * Разбивает сделки на порции по {@value #EXPORT_BATCH_SIZE}; связанные данные порции
+     * загружаются при её получении из итератора.
+     */
+    private Iterator<DealBatch> loadBatches(Iterable<Deal> deals) {
+        Iterator<Deal> source = deals.iterator();
+        return new Iterator<>() {
+
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public DealBatch next() {
+                List<Deal> batch = new ArrayList<>(EXPORT_BATCH_SIZE);
+                while (source.hasNext() && batch.size() < EXPORT_BATCH_SIZE) {
+                    batch.add(source.next());
+                }
+                return loadBatch(batch);
+            }
+
+        };
+    }
+
+    private void writeBatches(Iterator<DealBatch> batches, DealRowWriter writer, LongConsumer progress) throws IOException {
+        long exported = 0;
+
+        try (writer) {
+            while (batches.hasNext()) {
+                DealBatch batch = batches.next();
+                for (Deal deal : batch.deals()) {
+                    writer.writeDeal(deal);
+
+                    for (DealSum sum : batch.sumsByDeal().getOrDefault(deal.getId(), List.of())) {
+                        writer.writeSum(deal, sum);
+                    }
+
+                    for (DealContractor contractor : batch.contractorsByDeal().getOrDefault(deal.getId(), List.of())) {
+                        writer.writeContractor(deal, contractor, batch.rolesByContractor().getOrDefault(contractor.getId(), ""));
+                    }
+                }
+                exported += batch.deals().size();
+                progress.accept(exported);
+            }
+
+            writer.finish();
         }
     }
 
@@ -278,12 +471,16 @@ public class DealMapper {
     }
 
     private DealContractorDto toDealContractorDto(DealContractor contractor) {
+        return toDealContractorDto(contractor, toContractorRoleDtos(contractor.getId()));
+    }
+
+    private DealContractorDto toDealContractorDto(DealContractor contractor, List<ContractorRoleDto> roles) {
         return DealContractorDto.builder()
                 .id(contractor.getId().toString())
-                .contractorId(contractor.getContractorId())
+                .contractorId(contractor.getContractor().getId())
                 .main(contractor.getMain())
-                .name(contractor.getName())
-                .roles(toContractorRoleDtos(contractor.getId()))
+                .name(contractor.getContractor().getName())
+                .roles(roles)
                 .build();
     }
 
@@ -0,0 +1,28 @@
+package org.ex9.dealservice.mapper;
+
+import org.ex9.dealservice.dto.ExportJobDto;
+import org.ex9.dealservice.model.ExportJob;
+import org.springframework.stereotype.Component;
+
+/**
+ * Маппер для преобразования задачи выгрузки в DTO.
+ *
+ * @author Краковцев Артём
+ */
+@Component
+public class ExportJobMapper {
+
+    public ExportJobDto toExportJobDto(ExportJob job) {
+        return ExportJobDto.builder()
+                .id(job.getId())
+                .status(job.getStatus())
+                .processedDeals(job.getProcessedDeals())
+                .error(job.getError())
+                .createDate(job.getCreateDate())
+                .startDate(job.getStartDate())
+                .finishDate(job.getFinishDate())
+                .expireDate(job.getExpireDate())
+                .build();
+    }
+
+}
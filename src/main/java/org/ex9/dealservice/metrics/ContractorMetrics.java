@@ -0,0 +1,120 @@
+package org.ex9.dealservice.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Метрики обработки событий об изменении контрагентов.
+ * <p>
+ * Публикует время обработки сообщения, количество пропущенных дубликатов и ненайденных контрагентов,
+ * количество повторов и отброшенных сообщений по значению {@code x-death}, а также задержку
+ * между изменением контрагента в сервисе контрагентов и применением изменения в сделках.
+ * </p>
+ *
+ * @author Краковцев Артём
+ */
+@Component
+public class ContractorMetrics {
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_DUPLICATE = "duplicate";
+    public static final String OUTCOME_NOT_FOUND = "not_found";
+    public static final String OUTCOME_RETRY = "retry";
+    public static final String OUTCOME_DROPPED = "dropped";
+
+    private static final String PROCESSING = "deal.contractor.processing";
+    private static final String RETRIES = "deal.contractor.retries";
+    private static final String DROPPED = "deal.contractor.dropped";
+
+    private final MeterRegistry registry;
+    private final Counter duplicates;
+    private final Counter notFound;
+    private final Timer lag;
+
+    public ContractorMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.duplicates = Counter.builder("deal.contractor.duplicates")
+                .description("Messages skipped because they were already processed")
+                .register(registry);
+        this.notFound = Counter.builder("deal.contractor.not.found")
+                .description("Messages for contractors that are not linked to any deal")
+                .register(registry);
+        this.lag = Timer.builder("deal.contractor.lag")
+                .description("Time from contractor modification to applying it in deals")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Начинает замер времени обработки сообщения.
+     */
+    public Timer.Sample startProcessing() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Завершает замер времени обработки сообщения с указанным результатом.
+     */
+    public void stopProcessing(Timer.Sample sample, String outcome) {
+        sample.stop(Timer.builder(PROCESSING)
+                .description("Contractor message processing time")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    public void duplicate() {
+        duplicates.increment();
+    }
+
+    public void notFound() {
+        notFound.increment();
+    }
+
+    /**
+     * Учитывает сообщение, отправленное на повтор.
+     *
+     * @param deathCount текущее значение {@code x-death.count}
+     */
+    public void retry(long deathCount) {
+        Counter.builder(RETRIES)
+                .description("Messages rejected to the dead-letter queue for retry")
+                .tag("attempt", String.valueOf(deathCount))
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Учитывает сообщение, отброшенное после исчерпания повторов.
+     *
+     * @param deathCount текущее значение {@code x-death.count}
+     */
+    public void dropped(long deathCount) {
+        Counter.builder(DROPPED)
+                .description("Messages acknowledged without processing after the retry limit")
+                .tag("attempt", String.valueOf(deathCount))
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Записывает задержку от изменения контрагента до применения изменения.
+     *
+     * @param modifyDateTime время изменения контрагента из сообщения
+     */
+    public void recordLag(LocalDateTime modifyDateTime) {
+        if (modifyDateTime == null) {
+            return;
+        }
+        Duration duration = Duration.between(modifyDateTime, LocalDateTime.now());
+        if (!duration.isNegative()) {
+            lag.record(duration);
+        }
+    }
+
+}
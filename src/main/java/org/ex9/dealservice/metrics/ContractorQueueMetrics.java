@@ -0,0 +1,55 @@
+package org.ex9.dealservice.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Периодически опрашивает RabbitMQ и публикует глубину основной и dead-letter очередей контрагентов
+ * в метрике {@code deal.contractor.queue.depth}.
+ *
+ * @author Краковцев Артём
+ */
+@Component
+@Log4j2
+public class ContractorQueueMetrics {
+
+    private final AmqpAdmin amqpAdmin;
+    private final Map<String, AtomicLong> depths;
+
+    public ContractorQueueMetrics(MeterRegistry registry,
+                                  AmqpAdmin amqpAdmin,
+                                  @Value("${spring.rabbitmq.queues.contractor}") String contractorQueue,
+                                  @Value("${spring.rabbitmq.queues.dead}") String deadQueue) {
+        this.amqpAdmin = amqpAdmin;
+        this.depths = Map.of(contractorQueue, new AtomicLong(), deadQueue, new AtomicLong());
+        depths.forEach((queue, depth) -> Gauge.builder("deal.contractor.queue.depth", depth, AtomicLong::get)
+                .description("Number of ready messages in the queue")
+                .tag("queue", queue)
+                .register(registry));
+    }
+
+    @Scheduled(fixedDelayString = "${spring.rabbitmq.queue-depth-interval:30000}")
+    public void updateQueueDepth() {
+        depths.forEach((queue, depth) -> {
+            try {
+                QueueInformation info = amqpAdmin.getQueueInfo(queue);
+                if (info != null) {
+                    depth.set(info.getMessageCount());
+                }
+            } catch (AmqpException e) {
+                log.debug("Unable to get depth of queue '{}': {}", queue, e.getMessage());
+            }
+        });
+    }
+
+}
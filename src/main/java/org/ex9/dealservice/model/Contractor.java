@@ -0,0 +1,54 @@
+package org.ex9.dealservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Сущность контрагента из сервиса контрагентов.
+ * <p>
+ * Хранит наименование и ИНН в единственном экземпляре для всех сделок,
+ * в которых участвует контрагент.
+ * </p>
+ * @author Краковцев Артём
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "contractor")
+public class Contractor {
+
+    /**Идентификатор контрагента в сервисе контрагентов*/
+    @Id
+    @Size(max = 12)
+    @Column(name = "id", nullable = false, length = 12)
+    private String id;
+
+    @NotNull
+    @Column(name = "name", nullable = false, length = Integer.MAX_VALUE)
+    private String name;
+
+    @Column(name = "inn", length = Integer.MAX_VALUE)
+    private String inn;
+
+    /**Дата и время последнего изменения контрагента в сервисе контрагентов*/
+    @Column(name = "modify_date")
+    private LocalDateTime modifyDate;
+
+    @Column(name = "modify_user_id", length = Integer.MAX_VALUE)
+    private String modifyUserId;
+
+}
@@ -3,20 +3,19 @@ package org.ex9.dealservice.model;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -32,7 +31,7 @@ import java.util.UUID;
 public class DealContractor {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     @Column(name = "id", nullable = false)
     private UUID id;
 
@@ -41,17 +40,10 @@ public class DealContractor {
     @JoinColumn(name = "deal_id", nullable = false)
     private Deal deal;
 
-    @Size(max = 12)
     @NotNull
-    @Column(name = "contractor_id", nullable = false, length = 12)
-    private String contractorId;
-
-    @NotNull
-    @Column(name = "name", nullable = false, length = Integer.MAX_VALUE)
-    private String name;
-
-    @Column(name = "inn", length = Integer.MAX_VALUE)
-    private String inn;
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "contractor_id", nullable = false)
+    private Contractor contractor;
 
     @NotNull
     @ColumnDefault("false")
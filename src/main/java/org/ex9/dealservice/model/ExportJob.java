@@ -0,0 +1,90 @@
+package org.ex9.dealservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.ex9.dealservice.dto.DealSearchRequestDto;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Сущность задачи фоновой выгрузки сделок в excel.
+ * <p>
+ * Состояние хранится в БД, поэтому статус задачи доступен с любого экземпляра сервиса.
+ * </p>
+ * @author Краковцев Артём
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "export_job")
+public class ExportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "id", nullable = false)
+    private UUID id;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private ExportJobStatus status;
+
+    /**Параметры поиска, с которыми была создана задача*/
+    @NotNull
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "request", nullable = false)
+    private DealSearchRequestDto request;
+
+    /**Количество уже выгруженных сделок*/
+    @NotNull
+    @Column(name = "processed_deals", nullable = false)
+    private Long processedDeals;
+
+    /**Путь к сформированному файлу в локальном хранилище*/
+    @Column(name = "file_path", length = Integer.MAX_VALUE)
+    private String filePath;
+
+    @Column(name = "error", length = Integer.MAX_VALUE)
+    private String error;
+
+    @NotNull
+    @Column(name = "create_date", nullable = false)
+    private LocalDateTime createDate;
+
+    @Column(name = "start_date")
+    private LocalDateTime startDate;
+
+    @Column(name = "finish_date")
+    private LocalDateTime finishDate;
+
+    /**Момент, после которого файл удаляется из хранилища*/
+    @Column(name = "expire_date")
+    private LocalDateTime expireDate;
+
+    /**Экземпляр сервиса, который выполняет задачу и хранит её файл*/
+    @Column(name = "node_id")
+    private String nodeId;
+
+    /**Последнее подтверждение от экземпляра, что задача ещё выполняется*/
+    @Column(name = "heartbeat_date")
+    private LocalDateTime heartbeatDate;
+
+}
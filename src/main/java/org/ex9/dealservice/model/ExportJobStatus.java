@@ -0,0 +1,21 @@
+package org.ex9.dealservice.model;
+
+/**
+ * Состояние задачи фоновой выгрузки сделок.
+ *
+ * @author Краковцев Артём
+ */
+public enum ExportJobStatus {
+
+    /**Задача принята и ожидает свободного потока*/
+    QUEUED,
+    /**Файл формируется*/
+    RUNNING,
+    /**Файл сформирован и доступен для скачивания*/
+    DONE,
+    /**Выгрузка завершилась ошибкой*/
+    FAILED,
+    /**Срок хранения файла истёк, файл удалён*/
+    EXPIRED
+
+}
@@ -0,0 +1,44 @@
+package org.ex9.dealservice.model;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.uuid.UuidValueGenerator;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Генератор идентификаторов UUID версии 7 (RFC 9562) для {@link org.hibernate.annotations.UuidGenerator}.
+ *
+ * <p>Старшие 48 бит — время создания в миллисекундах Unix, следующие 12 бит ({@code rand_a}) — счётчик
+ * внутри миллисекунды, младшие 62 бита — случайные. Идентификаторы возрастают во времени, поэтому новые
+ * строки добавляются в конец B-дерева первичного ключа, а не в случайные страницы, как при UUID версии 4.
+ * При переполнении счётчика или переводе часов назад время берётся следующим за последним выданным,
+ * так что идентификаторы одного экземпляра строго возрастают.</p>
+ *
+ * @author Краковцев Артём
+ */
+public class UuidV7Generator implements UuidValueGenerator {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**Последние выданные время и счётчик: {@code unix_ts_ms << 12 | counter}*/
+    private static final AtomicLong LAST = new AtomicLong();
+
+    @Override
+    public UUID generateUuid(SharedSessionContractImplementor session) {
+        return generate();
+    }
+
+    /**
+     * Создаёт новый идентификатор.
+     */
+    public static UUID generate() {
+        long now = System.currentTimeMillis() << 12;
+        long state = LAST.updateAndGet(last -> Math.max(last + 1, now));
+        long mostSigBits = (state >>> 12) << 16 | 0x7000L | (state & 0xFFFL);
+        long leastSigBits = RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+}
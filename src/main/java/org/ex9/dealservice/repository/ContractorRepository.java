@@ -0,0 +1,22 @@
+package org.ex9.dealservice.repository;
+
+import org.ex9.dealservice.model.Contractor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+
+public interface ContractorRepository extends JpaRepository<Contractor, String> {
+
+    /**
+     * Обновляет наименование и ИНН контрагента, если в базе хранится более старая версия.
+     *
+     * @return количество обновлённых строк (0 или 1)
+     */
+    @Query("UPDATE Contractor c SET c.name=:name, c.inn=:inn, c.modifyDate=:modifyDate, c.modifyUserId=:modifyUserId " +
+            "WHERE c.id=:id AND (c.modifyDate IS NULL OR c.modifyDate < :modifyDate)")
+    @Modifying
+    int updateIfOlder(String id, String name, String inn, LocalDateTime modifyDate, String modifyUserId);
+
+}
@@ -1,19 +1,29 @@
 package org.ex9.dealservice.repository;
 
+import jakarta.persistence.QueryHint;
 import org.ex9.dealservice.model.ContractorToRole;
 import org.ex9.dealservice.model.ContractorToRoleId;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface ContractorToRoleRepository extends JpaRepository<ContractorToRole, ContractorToRoleId> {
 
+    @EntityGraph(attributePaths = "role")
     List<ContractorToRole> findAllByIdContractorIdAndIsActiveTrue(UUID contractorId);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @EntityGraph(attributePaths = "role")
+    List<ContractorToRole> findAllByIdContractorIdInAndIsActiveTrue(Collection<UUID> contractorIds);
+
     Optional<ContractorToRole> findByIdAndIsActiveTrue(ContractorToRoleId id);
 
     @Query("UPDATE ContractorToRole d SET d.isActive=false WHERE d.contractor.id=:contractorId AND d.role.id=:roleId")
@@ -1,18 +1,28 @@
 package org.ex9.dealservice.repository;
 
+import jakarta.persistence.QueryHint;
 import org.ex9.dealservice.model.DealContractor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface DealContractorRepository extends JpaRepository<DealContractor, UUID> {
 
+    @EntityGraph(attributePaths = "contractor")
     List<DealContractor> findAllByDealIdAndIsActiveTrue(UUID dealId);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @EntityGraph(attributePaths = "contractor")
+    List<DealContractor> findAllByDealIdInAndIsActiveTrue(Collection<UUID> dealIds);
+
     Optional<DealContractor> findByIdAndIsActiveTrue(UUID id);
 
     @Query("UPDATE DealContractor d SET d.isActive=false WHERE d.id=:id")
@@ -21,4 +31,7 @@ public interface DealContractorRepository extends JpaRepository<DealContractor,
 
     List<DealContractor> findAllByContractorIdAndIsActiveTrue(String contractorId);
 
+    @Query("SELECT d.deal.id FROM DealContractor d WHERE d.contractor.id=:contractorId AND d.isActive=true")
+    List<UUID> findDealIdsByContractorId(String contractorId);
+
 }
@@ -1,16 +1,47 @@
 package org.ex9.dealservice.repository;
 
+import jakarta.persistence.LockModeType;
 import org.ex9.dealservice.model.Deal;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface DealRepository extends JpaRepository<Deal, UUID>, JpaSpecificationExecutor<Deal> {
+public interface DealRepository extends JpaRepository<Deal, UUID>, JpaSpecificationExecutor<Deal>, DealStreamRepository,
+        DealRowRepository {
 
+    @EntityGraph(attributePaths = {"type", "status"})
     Optional<Deal> findByIdAndIsActiveTrue(UUID id);
 
+    /**
+     * Загружает сделку для изменения: версия сделки увеличивается при фиксации транзакции,
+     * даже если изменились только связанные с ней данные.
+     */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    Optional<Deal> findLockedById(UUID id);
+
+    @Modifying
+    @Query("UPDATE Deal d SET d.version = d.version + 1 WHERE d.id IN :ids")
+    int incrementVersion(@Param("ids") Collection<UUID> ids);
+
+    @Override
+    @EntityGraph(attributePaths = {"type", "status"})
+    Page<Deal> findAll(Specification<Deal> specification, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"type", "status"})
+    List<Deal> findAllByIdInAndIsActiveTrue(Collection<UUID> ids);
+
 }
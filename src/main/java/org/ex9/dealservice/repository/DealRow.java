@@ -0,0 +1,25 @@
+package org.ex9.dealservice.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Строка результата поиска сделок: поля сделки и названия её типа и статуса,
+ * выбранные одним запросом без создания сущностей.
+ *
+ * @param description описание; не выбирается для краткого представления
+ * @author Краковцев Артём
+ */
+public record DealRow(UUID id,
+                      String description,
+                      String agreementNumber,
+                      LocalDate agreementDate,
+                      LocalDateTime agreementStartDt,
+                      LocalDate availabilityDate,
+                      LocalDateTime closeDt,
+                      String typeId,
+                      String typeName,
+                      String statusId,
+                      String statusName) {
+}
@@ -0,0 +1,47 @@
+package org.ex9.dealservice.repository;
+
+import org.ex9.dealservice.dto.DealSearchRequestDto;
+import org.ex9.dealservice.dto.DealTotalMode;
+import org.ex9.dealservice.dto.DealView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+/**
+ * Поиск сделок с выборкой строк-проекций вместо сущностей.
+ *
+ * @author Краковцев Артём
+ */
+public interface DealRowRepository {
+
+    /**
+     * Возвращает страницу сделок в виде {@link DealRow}.
+     * <p>Страница читается одним нативным запросом с выборкой только нужных колонок и соединением со справочниками
+     * типов и статусов. Текст запроса берётся из {@link DealSearchSql} по форме запроса, значения фильтров
+     * передаются параметрами. Сущности не создаются и не попадают в контекст персистентности, поэтому нет
+     * снимков для проверки изменений и сброса перед запросом.</p>
+     * <p>При {@link DealTotalMode#EXACT} количество сделок считается параллельно с запросом данных
+     * в отдельной транзакции на своём соединении, и время ответа равно большему из двух запросов.
+     * Если количество можно определить по самой странице (она неполная), результат подсчёта
+     * не ожидается. При {@link DealTotalMode#NONE} подсчёт не выполняется: выбирается на одну строку
+     * больше размера страницы, чтобы узнать, есть ли следующая.</p>
+     *
+     * @param request   параметры поиска
+     * @param pageable  пагинация и сортировка
+     * @param view      представление; для {@link DealView#SUMMARY} описание не выбирается
+     * @param totalMode способ подсчёта общего количества
+     * @return {@link org.springframework.data.domain.Page} при {@link DealTotalMode#EXACT}, иначе срез без общего количества
+     * @throws IllegalArgumentException если сортировка задана по неподдерживаемому полю
+     */
+    Slice<DealRow> findRows(DealSearchRequestDto request, Pageable pageable, DealView view, DealTotalMode totalMode);
+
+    /**
+     * Считает сделки, удовлетворяющие условиям, но не больше {@code limit}: выбирается не больше
+     * {@code limit} идентификаторов, и БД прекращает поиск, набрав их.
+     *
+     * @param request параметры поиска
+     * @param limit   предел подсчёта
+     * @return количество сделок, не больше {@code limit}
+     */
+    long countAtMost(DealSearchRequestDto request, int limit);
+
+}
@@ -0,0 +1,262 @@
+package org.ex9.dealservice.repository;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.log4j.Log4j2;
+import org.ex9.dealservice.dto.DealSearchRequestDto;
+import org.ex9.dealservice.dto.DealTotalMode;
+import org.ex9.dealservice.dto.DealView;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Log4j2
+public class DealRowRepositoryImpl implements DealRowRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**Кэш текстов запросов по форме запроса*/
+    private final DealSearchSql searchSql;
+
+    /**Транзакция подсчёта в отдельном потоке: берёт своё соединение, независимое от запроса данных*/
+    private final TransactionTemplate countTransaction;
+
+    /**Виртуальные потоки для запросов подсчёта*/
+    private final ExecutorService countExecutor;
+
+    /**Выполнять ли подсчёт параллельно с запросом данных ({@code deal.search.parallel-count})*/
+    private final boolean parallelCount;
+
+    /**
+     * Ограничивает число одновременных параллельных подсчётов ({@code deal.search.parallel-count-permits}),
+     * чтобы они не занимали пул соединений. Если разрешений нет, подсчёт выполняется в потоке запроса.
+     */
+    private final Semaphore countPermits;
+
+    public DealRowRepositoryImpl(DealSearchSql searchSql,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${deal.search.parallel-count:false}") boolean parallelCount,
+                                 @Value("${deal.search.parallel-count-permits:4}") int countPermits) {
+        this.searchSql = searchSql;
+        this.parallelCount = parallelCount;
+        this.countPermits = new Semaphore(Math.max(1, countPermits));
+        this.countExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        this.countTransaction = new TransactionTemplate(transactionManager);
+        this.countTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public Slice<DealRow> findRows(DealSearchRequestDto request, Pageable pageable, DealView view, DealTotalMode totalMode) {
+        int shape = DealSearchFilter.shapeOf(request);
+        if (totalMode == DealTotalMode.NONE && pageable.isPaged()) {
+            List<DealRow> content = select(request, shape, pageable, view, pageable.getPageSize() + 1);
+            boolean hasNext = content.size() > pageable.getPageSize();
+            return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+        }
+
+        ParallelCount total = parallelCount && pageable.isPaged() ? startCount(request, shape) : null;
+        try {
+            List<DealRow> content = select(request, shape, pageable, view, pageable.isPaged() ? pageable.getPageSize() : -1);
+            return PageableExecutionUtils.getPage(content, pageable, () -> total != null ? total.get() : count(request, shape));
+        } finally {
+            if (total != null) {
+                total.cancel();
+            }
+        }
+    }
+
+    @Override
+    public long countAtMost(DealSearchRequestDto request, int limit) {
+        int shape = DealSearchFilter.shapeOf(request);
+        NativeQuery<Long> query = session().createNativeQuery(searchSql.countAtMost(shape), Long.class);
+        bind(query, request, shape);
+        return query.setParameter("limit", limit)
+                .setHint(HibernateHints.HINT_FLUSH_MODE, FlushMode.MANUAL)
+                .getSingleResult();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        countExecutor.shutdownNow();
+    }
+
+    private List<DealRow> select(DealSearchRequestDto request, int shape, Pageable pageable, DealView view, int maxResults) {
+        NativeQuery<DealRow> query = session().createNativeQuery(searchSql.rows(shape, pageable.getSort(), view))
+                .addScalar("id", UUID.class)
+                .addScalar("description", String.class)
+                .addScalar("agreement_number", String.class)
+                .addScalar("agreement_date", LocalDate.class)
+                .addScalar("agreement_start_dt", LocalDateTime.class)
+                .addScalar("availability_date", LocalDate.class)
+                .addScalar("close_dt", LocalDateTime.class)
+                .addScalar("type_id", String.class)
+                .addScalar("type_name", String.class)
+                .addScalar("status_id", String.class)
+                .addScalar("status_name", String.class)
+                .setTupleTransformer((tuple, aliases) -> new DealRow(
+                        (UUID) tuple[0],
+                        (String) tuple[1],
+                        (String) tuple[2],
+                        (LocalDate) tuple[3],
+                        (LocalDateTime) tuple[4],
+                        (LocalDate) tuple[5],
+                        (LocalDateTime) tuple[6],
+                        (String) tuple[7],
+                        (String) tuple[8],
+                        (String) tuple[9],
+                        (String) tuple[10]));
+        bind(query, request, shape);
+        query.setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_FLUSH_MODE, FlushMode.MANUAL);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(maxResults);
+        }
+        return query.getResultList();
+    }
+
+    private long count(DealSearchRequestDto request, int shape) {
+        NativeQuery<Long> query = session().createNativeQuery(searchSql.count(shape), Long.class);
+        bind(query, request, shape);
+        return query.setHint(HibernateHints.HINT_FLUSH_MODE, FlushMode.MANUAL)
+                .getSingleResult();
+    }
+
+    private Session session() {
+        return entityManager.unwrap(Session.class);
+    }
+
+    private static void bind(NativeQuery<?> query, DealSearchRequestDto request, int shape) {
+        DealSearchFilter.bind(request, shape, (name, value) -> {
+            if (value instanceof Collection<?> values) {
+                query.setParameterList(name, values);
+            } else {
+                query.setParameter(name, value);
+            }
+        });
+    }
+
+    /**
+     * Запускает подсчёт в отдельном потоке, если есть свободное разрешение.
+     *
+     * @return запущенный подсчёт или {@code null}, если считать нужно в потоке запроса
+     */
+    private ParallelCount startCount(DealSearchRequestDto request, int shape) {
+        if (!countPermits.tryAcquire()) {
+            return null;
+        }
+        try {
+            return new ParallelCount(request, shape);
+        } catch (RejectedExecutionException e) {
+            countPermits.release();
+            return null;
+        }
+    }
+
+    /**
+     * Подсчёт в отдельной транзакции. Отмена прерывает уже выполняющийся запрос через
+     * {@link Session#cancelQuery()} ({@code Statement.cancel}), поэтому ненужный подсчёт не держит соединение
+     * до конца. Поток не прерывается: прерывание виртуального потока в чтении из сокета закрыло бы соединение.
+     * Сессия публикуется и снимается под {@link #lock} до завершения транзакции, поэтому отмена
+     * никогда не обращается к уже закрытой сессии.
+     */
+    private final class ParallelCount {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Future<Long> result;
+
+        /**Сессия выполняющегося подсчёта; доступ только под {@link #lock}*/
+        private Session session;
+
+        /**Доступ только под {@link #lock}*/
+        private boolean cancelled;
+
+        private ParallelCount(DealSearchRequestDto request, int shape) {
+            this.result = countExecutor.submit(() -> {
+                try {
+                    return countTransaction.execute(status -> {
+                        lock.lock();
+                        try {
+                            if (cancelled) {
+                                throw new CancellationException();
+                            }
+                            session = session();
+                        } finally {
+                            lock.unlock();
+                        }
+                        try {
+                            return count(request, shape);
+                        } finally {
+                            lock.lock();
+                            try {
+                                session = null;
+                            } finally {
+                                lock.unlock();
+                            }
+                        }
+                    });
+                } finally {
+                    countPermits.release();
+                }
+            });
+        }
+
+        private long get() {
+            try {
+                return result.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the deal count", e);
+            }
+        }
+
+        private void cancel() {
+            if (result.isDone()) {
+                return;
+            }
+            lock.lock();
+            try {
+                cancelled = true;
+                if (session != null) {
+                    session.cancelQuery();
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to cancel the parallel deal count", e);
+            } finally {
+                lock.unlock();
+            }
+            result.cancel(false);
+        }
+
+    }
+
+}
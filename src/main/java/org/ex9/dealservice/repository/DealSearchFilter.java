@@ -0,0 +1,181 @@
+package org.ex9.dealservice.repository;
+
+import org.ex9.dealservice.dto.DealSearchRequestDto;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Фильтры поиска сделок в нативном SQL.
+ * <p>Каждый фильтр — условие с именованными параметрами, признак его наличия в запросе
+ * и привязка значений. Набор присутствующих фильтров (форма запроса) кодируется битовой маской
+ * по {@link #ordinal()}; условия сумм объединяются в один подзапрос к {@code deal_sum}.</p>
+ *
+ * @author Краковцев Артём
+ */
+enum DealSearchFilter {
+
+    DEAL_ID("d.id = :dealId",
+            request -> request.getDealId() != null,
+            (request, bind) -> bind.accept("dealId", request.getDealId())),
+
+    DESCRIPTION("d.description = :description",
+            request -> request.getDescription() != null,
+            (request, bind) -> bind.accept("description", request.getDescription())),
+
+    AGREEMENT_NUMBER("lower(d.agreement_number) LIKE :agreementNumber",
+            request -> request.getAgreementNumber() != null,
+            (request, bind) -> bind.accept("agreementNumber", contains(request.getAgreementNumber()))),
+
+    AGREEMENT_DATE("d.agreement_date BETWEEN :agreementDateFrom AND :agreementDateTo",
+            request -> request.getAgreementDateFrom() != null && request.getAgreementDateTo() != null,
+            (request, bind) -> {
+                bind.accept("agreementDateFrom", request.getAgreementDateFrom());
+                bind.accept("agreementDateTo", request.getAgreementDateTo());
+            }),
+
+    AVAILABILITY_DATE("d.availability_date BETWEEN :availabilityDateFrom AND :availabilityDateTo",
+            request -> request.getAvailabilityDateFrom() != null && request.getAvailabilityDateTo() != null,
+            (request, bind) -> {
+                bind.accept("availabilityDateFrom", request.getAvailabilityDateFrom());
+                bind.accept("availabilityDateTo", request.getAvailabilityDateTo());
+            }),
+
+    TYPE("d.type_id IN (:typeIds)",
+            request -> isNotEmpty(request.getTypeIds()),
+            (request, bind) -> bind.accept("typeIds", request.getTypeIds())),
+
+    STATUS("d.status_id IN (:statusIds)",
+            request -> isNotEmpty(request.getStatusIds()),
+            (request, bind) -> bind.accept("statusIds", request.getStatusIds())),
+
+    CLOSE_DT("d.close_dt BETWEEN :closeDtFrom AND :closeDtTo",
+            request -> request.getCloseDtFrom() != null && request.getCloseDtTo() != null,
+            (request, bind) -> {
+                bind.accept("closeDtFrom", request.getCloseDtFrom());
+                bind.accept("closeDtTo", request.getCloseDtTo());
+            }),
+
+    BORROWER(contractorWithRole("BORROWER", "borrower"),
+            request -> isNotEmpty(request.getBorrowerSearch()),
+            (request, bind) -> bind.accept("borrower", contains(request.getBorrowerSearch()))),
+
+    WARRANTY(contractorWithRole("WARRANTY", "warranty"),
+            request -> isNotEmpty(request.getWarrantySearch()),
+            (request, bind) -> bind.accept("warranty", contains(request.getWarrantySearch()))),
+
+    SUM_VALUE("ds.sum = :sumValue",
+            request -> request.getSum() != null && isNotEmpty(request.getSum().getValue()),
+            (request, bind) -> bind.accept("sumValue", new BigDecimal(request.getSum().getValue()))),
+
+    SUM_CURRENCY("ds.currency_id = :sumCurrency",
+            request -> request.getSum() != null && isNotEmpty(request.getSum().getCurrency()),
+            (request, bind) -> bind.accept("sumCurrency", request.getSum().getCurrency()));
+
+    /**Условие; для фильтров сумм — условие на строку {@code deal_sum ds}*/
+    private final String condition;
+    private final Predicate<DealSearchRequestDto> present;
+    private final BiConsumer<DealSearchRequestDto, BiConsumer<String, Object>> binder;
+
+    DealSearchFilter(String condition,
+                     Predicate<DealSearchRequestDto> present,
+                     BiConsumer<DealSearchRequestDto, BiConsumer<String, Object>> binder) {
+        this.condition = condition;
+        this.present = present;
+        this.binder = binder;
+    }
+
+    private static final DealSearchFilter[] VALUES = values();
+
+    /**
+     * Вычисляет форму запроса: бит {@code 1 << ordinal()} установлен для каждого присутствующего фильтра.
+     */
+    static int shapeOf(DealSearchRequestDto request) {
+        int shape = 0;
+        for (DealSearchFilter filter : VALUES) {
+            if (filter.present.test(request)) {
+                shape |= 1 << filter.ordinal();
+            }
+        }
+        return shape;
+    }
+
+    /**
+     * Строит условие WHERE для формы запроса. Условия сумм объединяются в один {@code EXISTS},
+     * чтобы сумма и валюта относились к одной записи суммы.
+     */
+    static String where(int shape) {
+        StringBuilder where = new StringBuilder("d.is_active = true");
+        StringBuilder sum = new StringBuilder();
+        for (DealSearchFilter filter : VALUES) {
+            if (!filter.in(shape)) {
+                continue;
+            }
+            if (filter.isSum()) {
+                sum.append(" AND ").append(filter.condition);
+            } else {
+                where.append(" AND ").append(filter.condition);
+            }
+        }
+        if (!sum.isEmpty()) {
+            where.append(" AND EXISTS (SELECT 1 FROM deal_sum ds WHERE ds.deal_id = d.id AND ds.is_active = true")
+                    .append(sum)
+                    .append(')');
+        }
+        return where.toString();
+    }
+
+    /**
+     * Передаёт значения параметров всех фильтров формы запроса.
+     *
+     * @param request параметры поиска
+     * @param shape   форма запроса, вычисленная по {@code request}
+     * @param bind    получает имя параметра и значение; списки передаются как {@link Collection}
+     */
+    static void bind(DealSearchRequestDto request, int shape, BiConsumer<String, Object> bind) {
+        for (DealSearchFilter filter : VALUES) {
+            if (filter.in(shape)) {
+                filter.binder.accept(request, bind);
+            }
+        }
+    }
+
+    private boolean in(int shape) {
+        return (shape & (1 << ordinal())) != 0;
+    }
+
+    private boolean isSum() {
+        return this == SUM_VALUE || this == SUM_CURRENCY;
+    }
+
+    /**
+     * Условие наличия в сделке активного контрагента с ролью заданной категории,
+     * у которого идентификатор, наименование или ИНН содержат строку поиска.
+     */
+    private static String contractorWithRole(String category, String parameter) {
+        return "EXISTS (SELECT 1 FROM deal_contractor dc"
+                + " JOIN contractor c ON c.id = dc.contractor_id"
+                + " JOIN contractor_to_role ctr ON ctr.contractor_id = dc.id"
+                + " JOIN contractor_role cr ON cr.id = ctr.role_id"
+                + " WHERE dc.deal_id = d.id AND dc.is_active = true AND ctr.is_active = true"
+                + " AND cr.category = '" + category + "'"
+                + " AND (lower(c.id) LIKE :" + parameter
+                + " OR lower(c.name) LIKE :" + parameter
+                + " OR lower(c.inn) LIKE :" + parameter + "))";
+    }
+
+    private static String contains(String search) {
+        return "%" + search.toLowerCase() + "%";
+    }
+
+    private static boolean isNotEmpty(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    private static boolean isNotEmpty(Collection<?> values) {
+        return values != null && !values.isEmpty();
+    }
+
+}
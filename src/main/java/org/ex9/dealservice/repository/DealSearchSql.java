@@ -0,0 +1,94 @@
+package org.ex9.dealservice.repository;
+
+import org.ex9.dealservice.dto.DealView;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Заранее собранные нативные SQL-запросы поиска сделок.
+ *
+ * <p>Текст запроса зависит только от формы запроса ({@link DealSearchFilter#shapeOf}), сортировки
+ * и представления, а значения фильтров передаются параметрами. Поэтому для каждой формы SQL
+ * строится один раз, и один и тот же текст повторно используют кэш планов Hibernate и кэш
+ * подготовленных на сервере выражений драйвера PostgreSQL. Списки в {@code IN} дополняются
+ * до степени двойки ({@code hibernate.query.in_clause_parameter_padding}), чтобы длина списка
+ * не порождала новые тексты запроса.</p>
+ *
+ * @author Краковцев Артём
+ */
+@Component
+public class DealSearchSql {
+
+    /**Колонки сортировки по полям сделки, допустимым в {@code sortBy}*/
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "agreementDate", "d.agreement_date",
+            "agreementNumber", "d.agreement_number",
+            "availabilityDate", "d.availability_date",
+            "closeDt", "d.close_dt",
+            "createDate", "d.create_date");
+
+    private static final String FROM = " FROM deal d";
+    private static final String JOINS = " LEFT JOIN deal_type tp ON tp.id = d.type_id LEFT JOIN deal_status st ON st.id = d.status_id";
+
+    private final Map<RowsKey, String> rows = new ConcurrentHashMap<>();
+    private final Map<Integer, String> counts = new ConcurrentHashMap<>();
+    private final Map<Integer, String> cappedCounts = new ConcurrentHashMap<>();
+
+    /**
+     * Запрос строк {@link DealRow}. Колонки совпадают с именами компонентов записи в snake_case.
+     *
+     * @param shape форма запроса
+     * @param sort  сортировка по полям из {@code sortBy}
+     * @param view  представление; для {@link DealView#SUMMARY} описание не выбирается
+     * @throws IllegalArgumentException если сортировка задана по неподдерживаемому полю
+     */
+    public String rows(int shape, Sort sort, DealView view) {
+        return rows.computeIfAbsent(new RowsKey(shape, sort, view), key -> "SELECT d.id AS id, "
+                + (key.view() == DealView.SUMMARY ? "CAST(NULL AS text)" : "d.description") + " AS description,"
+                + " d.agreement_number AS agreement_number, d.agreement_date AS agreement_date,"
+                + " d.agreement_start_dt AS agreement_start_dt, d.availability_date AS availability_date,"
+                + " d.close_dt AS close_dt, tp.id AS type_id, tp.name AS type_name, st.id AS status_id, st.name AS status_name"
+                + FROM + JOINS
+                + " WHERE " + DealSearchFilter.where(key.shape())
+                + orderBy(key.sort()));
+    }
+
+    /**
+     * Запрос общего количества сделок формы.
+     */
+    public String count(int shape) {
+        return counts.computeIfAbsent(shape, key -> "SELECT count(*)" + FROM + " WHERE " + DealSearchFilter.where(key));
+    }
+
+    /**
+     * Запрос количества сделок формы, но не больше {@code :limit}: БД прекращает чтение на пределе
+     * и возвращает одно число вместо идентификаторов.
+     */
+    public String countAtMost(int shape) {
+        return cappedCounts.computeIfAbsent(shape, key -> "SELECT count(*) FROM (SELECT 1" + FROM
+                + " WHERE " + DealSearchFilter.where(key) + " LIMIT :limit) t");
+    }
+
+    private static String orderBy(Sort sort) {
+        if (sort.isUnsorted()) {
+            return "";
+        }
+        return sort.stream()
+                .map(order -> {
+                    String column = SORT_COLUMNS.get(order.getProperty());
+                    if (column == null) {
+                        throw new IllegalArgumentException("Unsupported sort property '" + order.getProperty() + "'");
+                    }
+                    return column + (order.isDescending() ? " DESC" : " ASC");
+                })
+                .collect(Collectors.joining(", ", " ORDER BY ", ""));
+    }
+
+    private record RowsKey(int shape, Sort sort, DealView view) {
+    }
+
+}
@@ -1,8 +1,11 @@
 package org.ex9.dealservice.repository;
 
 import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import org.ex9.dealservice.dto.DealSearchRequestDto;
 import org.ex9.dealservice.dto.DealSumDto;
+import org.ex9.dealservice.model.Contractor;
 import org.ex9.dealservice.model.ContractorRole;
 import org.ex9.dealservice.model.ContractorToRole;
 import org.ex9.dealservice.model.Deal;
@@ -10,6 +13,7 @@ import org.ex9.dealservice.model.DealContractor;
 import org.ex9.dealservice.model.DealSum;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -32,7 +36,7 @@ public final class DealSpecification {
         specList.add(searchByDescription(request.getDescription()));
         specList.add(searchByAgreementNumber(request.getAgreementNumber()));
         specList.add(searchByAgreementDate(request.getAgreementDateFrom(), request.getAgreementDateTo()));
-        specList.add(searchByAvailabilityDate(request.getAgreementDateFrom(), request.getAgreementDateTo()));
+        specList.add(searchByAvailabilityDate(request.getAvailabilityDateFrom(), request.getAvailabilityDateTo()));
         specList.add(searchByType(request.getTypeIds()));
         specList.add(searchByStatus(request.getStatusIds()));
         specList.add(searchByCloseDt(request.getCloseDtFrom(), request.getCloseDtTo()));
@@ -70,7 +74,7 @@ public final class DealSpecification {
         }
         return (root, query, cb) ->
                 cb.like(cb.lower(root.get("agreementNumber")),
-                        "%" + agreementNumber + "%");
+                        "%" + agreementNumber.toLowerCase() + "%");
    }
 
    private static Specification<Deal> searchByAgreementDate(LocalDate from, LocalDate to) {
@@ -121,57 +125,71 @@ public final class DealSpecification {
     }
 
     private static Specification<Deal> searchByBorrower(String borrowerSearch) {
-        if (borrowerSearch == null || borrowerSearch.isEmpty()) {
-            return null;
-        }
-        return (root, query, cb) -> {
-            Join<Deal, DealContractor> contractorJoin = root.join("contractor");
-            Join<DealContractor, ContractorToRole> roleJoin = contractorJoin.join("contractorToRoles");
-            Join<ContractorToRole, ContractorRole> role = roleJoin.join("role");
-            var category = cb.equal(role.get("category"), "BORROWER");
-            var search = cb.or(
-                    cb.like(cb.lower(contractorJoin.get("contractorId")), "%" + borrowerSearch.toLowerCase() + "%"),
-                    cb.like(cb.lower(contractorJoin.get("name")), "%" + borrowerSearch.toLowerCase() + "%"),
-                    cb.like(cb.lower(contractorJoin.get("inn")), "%" + borrowerSearch.toLowerCase() + "%")
-            );
-            return cb.and(category, search);
-        };
+        return searchByContractorWithRole(borrowerSearch, "BORROWER");
     }
 
     private static Specification<Deal> searchByWarranity(String warranitySearch) {
-        if (warranitySearch == null || warranitySearch.isEmpty()) {
+        return searchByContractorWithRole(warranitySearch, "WARRANTY");
+    }
+
+    /**
+     * Ищет сделки, в которых есть активный контрагент с ролью заданной категории,
+     * у которого идентификатор, наименование или ИНН из справочника контрагентов содержат строку поиска.
+     */
+    private static Specification<Deal> searchByContractorWithRole(String search, String category) {
+        if (search == null || search.isEmpty()) {
             return null;
         }
+        String pattern = "%" + search.toLowerCase() + "%";
         return (root, query, cb) -> {
-            Join<Deal, DealContractor> contractorJoin = root.join("contractor");
-            Join<DealContractor, ContractorToRole> roleJoin = contractorJoin.join("contractorToRoles");
-            Join<ContractorToRole, ContractorRole> role = roleJoin.join("role");
-            var category = cb.equal(role.get("category"), "WARRANTY");
-            var search = cb.or(
-                    cb.like(cb.lower(contractorJoin.get("contractorId")), "%" + warranitySearch.toLowerCase() + "%"),
-                    cb.like(cb.lower(contractorJoin.get("name")), "%" + warranitySearch.toLowerCase() + "%"),
-                    cb.like(cb.lower(contractorJoin.get("inn")), "%" + warranitySearch.toLowerCase() + "%")
+            Subquery<UUID> subquery = query.subquery(UUID.class);
+            Root<ContractorToRole> contractorToRole = subquery.from(ContractorToRole.class);
+            Join<ContractorToRole, DealContractor> dealContractor = contractorToRole.join("contractor");
+            Join<DealContractor, Contractor> contractor = dealContractor.join("contractor");
+            Join<ContractorToRole, ContractorRole> role = contractorToRole.join("role");
+            var matches = cb.or(
+                    cb.like(cb.lower(contractor.get("id")), pattern),
+                    cb.like(cb.lower(contractor.get("name")), pattern),
+                    cb.like(cb.lower(contractor.get("inn")), pattern)
             );
-            return cb.and(category, search);
+            subquery.select(dealContractor.get("id"))
+                    .where(cb.equal(dealContractor.get("deal"), root),
+                            cb.isTrue(dealContractor.get("isActive")),
+                            cb.isTrue(contractorToRole.get("isActive")),
+                            cb.equal(role.get("category"), category),
+                            matches);
+            return cb.exists(subquery);
         };
     }
 
+    /**
+     * Ищет сделки, у которых есть активная сумма с заданными значением и валютой.
+     * Оба условия относятся к одной записи суммы.
+     */
     private static Specification<Deal> searchBySum(DealSumDto sumDto) {
-        if (sumDto != null) {
-            return (root, query, cb) -> {
-                Join<Deal, DealSum> sumJoin = root.join("dealSums");
-                List<Predicate> predicates = new ArrayList<>();
-
-                if (sumDto.getValue() != null && !sumDto.getValue().isEmpty()) {
-                    predicates.add(cb.equal(sumJoin.get("sum"), sumDto.getValue()));
-                }
-                if (sumDto.getCurrency() != null && !sumDto.getCurrency().isEmpty()) {
-                    predicates.add(cb.equal(sumJoin.get("currency").get("id"), sumDto.getCurrency()));
-                }
-                return cb.and(predicates.toArray(new Predicate[predicates.size()]));
-            };
+        if (sumDto == null) {
+            return null;
+        }
+        boolean hasValue = sumDto.getValue() != null && !sumDto.getValue().isEmpty();
+        boolean hasCurrency = sumDto.getCurrency() != null && !sumDto.getCurrency().isEmpty();
+        if (!hasValue && !hasCurrency) {
+            return null;
         }
-        return null;
+        return (root, query, cb) -> {
+            Subquery<Long> subquery = query.subquery(Long.class);
+            Root<DealSum> dealSum = subquery.from(DealSum.class);
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.equal(dealSum.get("deal"), root));
+            predicates.add(cb.isTrue(dealSum.get("isActive")));
+            if (hasValue) {
+                predicates.add(cb.equal(dealSum.get("sum"), new BigDecimal(sumDto.getValue())));
+            }
+            if (hasCurrency) {
+                predicates.add(cb.equal(dealSum.get("currency").get("id"), sumDto.getCurrency()));
+            }
+            subquery.select(dealSum.get("id")).where(predicates.toArray(new Predicate[0]));
+            return cb.exists(subquery);
+        };
     }
 
 }
@@ -0,0 +1,72 @@
+package org.ex9.dealservice.repository;
+
+import org.ex9.dealservice.model.Deal;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Потоковое чтение сделок без загрузки всего результата в память.
+ *
+ * @author Краковцев Артём
+ */
+public interface DealStreamRepository {
+
+    /**
+     * Передаёт в {@code consumer} поток всех сделок, удовлетворяющих спецификации.
+     * <p>
+     * Сделки читаются однонаправленным курсором JDBC с ограниченным размером выборки
+     * через stateless-сессию, тип и статус сделки загружаются сразу.
+     * Поток действителен только внутри {@code consumer}; вызывающий метод должен выполняться в транзакции.
+     * </p>
+     *
+     * @param specification условия поиска
+     * @param sort          сортировка
+     * @param consumer      обработчик потока сделок
+     */
+    void streamAll(Specification<Deal> specification, Sort sort, Consumer<Stream<Deal>> consumer);
+
+    /**
+     * Возвращает границу следующей партиции при обходе сделок по возрастанию идентификатора:
+     * идентификатор {@code partitionSize}-й сделки после {@code after}, удовлетворяющей спецификации.
+     * Передаётся только одно значение, а не весь список идентификаторов.
+     *
+     * @param specification условия поиска
+     * @param after         граница предыдущей партиции (не включается) или {@code null} для первой
+     * @param partitionSize размер партиции
+     * @return идентификатор последней сделки партиции или {@code null}, если до конца выборки осталось меньше сделок
+     */
+    UUID findPartitionBound(Specification<Deal> specification, UUID after, int partitionSize);
+
+    /**
+     * Возвращает сделки, удовлетворяющие спецификации, с идентификатором в диапазоне
+     * {@code (after, upTo]}, по возрастанию идентификатора. Тип и статус сделки загружаются сразу.
+     *
+     * @param specification условия поиска
+     * @param after         нижняя граница (не включается) или {@code null}
+     * @param upTo          верхняя граница (включается) или {@code null}
+     * @return сделки партиции
+     */
+    List<Deal> findPartition(Specification<Deal> specification, UUID after, UUID upTo);
+
+    /**
+     * Экспортирует снимок данных текущей транзакции ({@code pg_export_snapshot()}).
+     * Снимок доступен для импорта, пока транзакция не завершена.
+     *
+     * @return идентификатор снимка
+     */
+    String exportSnapshot();
+
+    /**
+     * Переключает текущую транзакцию на экспортированный снимок ({@code SET TRANSACTION SNAPSHOT}).
+     * Должен вызываться первым запросом транзакции уровня REPEATABLE READ.
+     *
+     * @param snapshotId идентификатор снимка из {@link #exportSnapshot()}
+     */
+    void importSnapshot(String snapshotId);
+
+}
@@ -0,0 +1,142 @@
+package org.ex9.dealservice.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.ex9.dealservice.model.Deal;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+public class DealStreamRepositoryImpl implements DealStreamRepository {
+
+    /**Количество строк, получаемых из курсора за одно обращение к БД*/
+    private static final int FETCH_SIZE = 500;
+
+    /**Через сколько сделок очищается контекст персистентности, накопивший связанные данные*/
+    private static final int CLEAR_INTERVAL = 1000;
+
+    /**Формат идентификатора снимка PostgreSQL; значение подставляется в SQL, поэтому проверяется*/
+    private static final Pattern SNAPSHOT_ID = Pattern.compile("[0-9A-Fa-f-]+");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void streamAll(Specification<Deal> specification, Sort sort, Consumer<Stream<Deal>> consumer) {
+        Session session = entityManager.unwrap(Session.class);
+        session.doWork(connection -> {
+            try (StatelessSession statelessSession = session.getSessionFactory()
+                    .withStatelessOptions()
+                    .connection(connection)
+                    .openStatelessSession()) {
+                CriteriaBuilder cb = statelessSession.getCriteriaBuilder();
+                CriteriaQuery<Deal> query = cb.createQuery(Deal.class);
+                Root<Deal> root = query.from(Deal.class);
+                root.fetch("type", JoinType.LEFT);
+                root.fetch("status", JoinType.LEFT);
+                if (specification != null) {
+                    Predicate predicate = specification.toPredicate(root, query, cb);
+                    if (predicate != null) {
+                        query.where(predicate);
+                    }
+                }
+                query.orderBy(QueryUtils.toOrders(sort, root, cb));
+
+                AtomicInteger counter = new AtomicInteger();
+                try (Stream<Deal> deals = statelessSession.createQuery(query)
+                        .setFetchSize(FETCH_SIZE)
+                        .setReadOnly(true)
+                        .getResultStream()) {
+                    consumer.accept(deals.peek(deal -> {
+                        if (counter.incrementAndGet() % CLEAR_INTERVAL == 0) {
+                            entityManager.clear();
+                        }
+                    }));
+                }
+            }
+        });
+    }
+
+    @Override
+    public UUID findPartitionBound(Specification<Deal> specification, UUID after, int partitionSize) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UUID> query = cb.createQuery(UUID.class);
+        Root<Deal> root = query.from(Deal.class);
+        query.select(root.get("id"));
+        query.where(idRange(specification, root, query, cb, after, null));
+        query.orderBy(cb.asc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setFirstResult(partitionSize - 1)
+                .setMaxResults(1)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Override
+    public List<Deal> findPartition(Specification<Deal> specification, UUID after, UUID upTo) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Deal> query = cb.createQuery(Deal.class);
+        Root<Deal> root = query.from(Deal.class);
+        root.fetch("type", JoinType.LEFT);
+        root.fetch("status", JoinType.LEFT);
+        query.where(idRange(specification, root, query, cb, after, upTo));
+        query.orderBy(cb.asc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .getResultList();
+    }
+
+    @Override
+    public String exportSnapshot() {
+        return (String) entityManager.createNativeQuery("SELECT pg_export_snapshot()").getSingleResult();
+    }
+
+    @Override
+    public void importSnapshot(String snapshotId) {
+        if (!SNAPSHOT_ID.matcher(snapshotId).matches()) {
+            throw new IllegalArgumentException("Invalid snapshot id '" + snapshotId + "'");
+        }
+        entityManager.createNativeQuery("SET TRANSACTION SNAPSHOT '" + snapshotId + "'").executeUpdate();
+    }
+
+    private Predicate[] idRange(Specification<Deal> specification, Root<Deal> root, CriteriaQuery<?> query,
+                                CriteriaBuilder cb, UUID after, UUID upTo) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, cb);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        Path<UUID> id = root.get("id");
+        if (after != null) {
+            predicates.add(cb.greaterThan(id, after));
+        }
+        if (upTo != null) {
+            predicates.add(cb.lessThanOrEqualTo(id, upTo));
+        }
+        return predicates.toArray(Predicate[]::new);
+    }
+
+}
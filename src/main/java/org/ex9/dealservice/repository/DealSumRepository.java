@@ -1,9 +1,14 @@
 package org.ex9.dealservice.repository;
 
+import jakarta.persistence.QueryHint;
 import org.ex9.dealservice.model.DealSum;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -12,4 +17,8 @@ public interface DealSumRepository extends JpaRepository<DealSum, Long> {
 
     List<DealSum> findAllByDealIdAndIsActiveTrue(UUID dealId);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @EntityGraph(attributePaths = "currency")
+    List<DealSum> findAllByDealIdInAndIsActiveTrue(Collection<UUID> dealIds);
+
 }
@@ -0,0 +1,60 @@
+package org.ex9.dealservice.repository;
+
+import org.ex9.dealservice.model.ExportJob;
+import org.ex9.dealservice.model.ExportJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Репозиторий для работы с таблицей {@code export_job}.
+ * @author Краковцев Артём
+ */
+@Repository
+public interface ExportJobRepository extends JpaRepository<ExportJob, UUID> {
+
+    List<ExportJob> findAllByStatusAndNodeIdAndExpireDateBefore(ExportJobStatus status, String nodeId, LocalDateTime expireDate);
+
+    List<ExportJob> findAllByStatusAndNodeIdIsNullAndExpireDateBefore(ExportJobStatus status, LocalDateTime expireDate);
+
+    @Query("UPDATE ExportJob j SET j.processedDeals=:processedDeals WHERE j.id=:id")
+    @Modifying
+    void updateProgress(UUID id, long processedDeals);
+
+    /**
+     * Отмечает, что экземпляр сервиса жив и продолжает выполнять свои задачи.
+     *
+     * @return количество обновлённых задач
+     */
+    @Query("UPDATE ExportJob j SET j.heartbeatDate=:now WHERE j.nodeId=:nodeId AND j.status IN :statuses")
+    @Modifying
+    int heartbeat(String nodeId, Collection<ExportJobStatus> statuses, LocalDateTime now);
+
+    /**
+     * Завершает ошибкой задачи экземпляра, созданные до его запуска: очередь и потоки выгрузки
+     * не переживают перезапуск, и такие задачи уже никто не выполнит.
+     *
+     * @return количество завершённых задач
+     */
+    @Query("UPDATE ExportJob j SET j.status=org.ex9.dealservice.model.ExportJobStatus.FAILED, j.error=:error, j.finishDate=:now " +
+            "WHERE j.nodeId=:nodeId AND j.status IN :statuses AND j.createDate < :createdBefore")
+    @Modifying
+    int failOrphaned(String nodeId, Collection<ExportJobStatus> statuses, LocalDateTime createdBefore, String error, LocalDateTime now);
+
+    /**
+     * Завершает ошибкой задачи, экземпляр которых давно не подтверждал, что жив.
+     *
+     * @return количество завершённых задач
+     */
+    @Query("UPDATE ExportJob j SET j.status=org.ex9.dealservice.model.ExportJobStatus.FAILED, j.error=:error, j.finishDate=:now " +
+            "WHERE j.status IN :statuses AND COALESCE(j.heartbeatDate, j.createDate) < :staleBefore")
+    @Modifying
+    int failStale(Collection<ExportJobStatus> statuses, LocalDateTime staleBefore, String error, LocalDateTime now);
+
+}
@@ -0,0 +1,30 @@
+package org.ex9.dealservice.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Настройки доступа пользователей к типам сделок ({@code deal.access}).
+ *
+ * @param superuserRoles  роли с доступом ко всем типам сделок
+ * @param roleTypes       типы сделок, доступные каждой роли
+ * @param restrictedTypes типы, запрос которых без роли суперпользователя запрещён целиком
+ * @param maxRoleSets     максимальное количество кэшируемых наборов ролей
+ * @author Краковцев Артём
+ */
+@ConfigurationProperties("deal.access")
+public record DealAccessProperties(List<String> superuserRoles,
+                                   Map<String, List<String>> roleTypes,
+                                   List<String> restrictedTypes,
+                                   Integer maxRoleSets) {
+
+    public DealAccessProperties {
+        superuserRoles = superuserRoles == null ? List.of() : List.copyOf(superuserRoles);
+        roleTypes = roleTypes == null ? Map.of() : Map.copyOf(roleTypes);
+        restrictedTypes = restrictedTypes == null ? List.of() : List.copyOf(restrictedTypes);
+        maxRoleSets = maxRoleSets == null ? 1024 : maxRoleSets;
+    }
+
+}
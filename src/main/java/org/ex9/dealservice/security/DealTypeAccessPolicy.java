@@ -0,0 +1,132 @@
+package org.ex9.dealservice.security;
+
+import lombok.RequiredArgsConstructor;
+import org.ex9.dealservice.model.Deal;
+import org.ex9.dealservice.repository.DealRepository;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Политика доступа пользователей к типам сделок.
+ * <p>Соответствие ролей типам сделок задаётся в {@code deal.access}. Каждый встреченный набор ролей
+ * один раз компилируется в неизменяемое правило с множеством доступных типов и кэшируется,
+ * поэтому проверка на запрос сводится к поиску в кэше и проверкам принадлежности.</p>
+ *
+ * @author Краковцев Артём
+ */
+@Component
+@RequiredArgsConstructor
+public class DealTypeAccessPolicy {
+
+    private final DealAccessProperties properties;
+    private final DealRepository dealRepository;
+    private final Map<Set<String>, AccessRule> rules = new ConcurrentHashMap<>();
+
+    /**
+     * Оставляет из запрошенных типов сделок только доступные текущему пользователю.
+     *
+     * @param types запрошенные типы сделок; для суперпользователя возвращаются без изменений
+     * @return доступные типы сделок
+     * @throws AccessDeniedException если типы не указаны, запрошен закрытый тип или ни один тип не доступен
+     */
+    public List<String> getAllowedTypes(List<String> types) {
+        AccessRule rule = currentRule();
+        if (rule.superuser()) {
+            return types;
+        }
+        if (types == null || types.stream().anyMatch(rule.restrictedTypes()::contains)) {
+            throw new AccessDeniedException("Access denied");
+        }
+        List<String> allowedTypes = types.stream()
+                .filter(rule.allowedTypes()::contains)
+                .distinct()
+                .toList();
+        if (allowedTypes.isEmpty()) {
+            throw new AccessDeniedException("Access denied");
+        }
+        return allowedTypes;
+    }
+
+    /**
+     * Проверяет, что текущему пользователю доступен указанный тип сделки.
+     *
+     * @param typeId тип сделки
+     * @throws AccessDeniedException если тип недоступен
+     */
+    public void checkType(String typeId) {
+        AccessRule rule = currentRule();
+        if (!rule.superuser() && !rule.allowedTypes().contains(typeId)) {
+            throw new AccessDeniedException("Access denied");
+        }
+    }
+
+    /**
+     * Проверяет, что текущему пользователю доступен тип указанной сделки.
+     * Для суперпользователя сделка не загружается; отсутствующая сделка не проверяется.
+     *
+     * @param dealId идентификатор сделки
+     * @throws AccessDeniedException если тип сделки недоступен
+     */
+    public void checkDeal(UUID dealId) {
+        if (currentRule().superuser() || dealId == null) {
+            return;
+        }
+        dealRepository.findById(dealId)
+                .map(Deal::getType)
+                .ifPresent(type -> checkType(type.getId()));
+    }
+
+    private AccessRule currentRule() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            throw new AccessDeniedException("Access denied");
+        }
+        return ruleFor(authentication.getAuthorities());
+    }
+
+    AccessRule ruleFor(Collection<? extends GrantedAuthority> authorities) {
+        Set<String> roles = authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toUnmodifiableSet());
+        AccessRule rule = rules.get(roles);
+        if (rule != null) {
+            return rule;
+        }
+        rule = compile(roles);
+        if (rules.size() < properties.maxRoleSets()) {
+            rules.putIfAbsent(roles, rule);
+        }
+        return rule;
+    }
+
+    private AccessRule compile(Set<String> roles) {
+        boolean superuser = properties.superuserRoles().stream().anyMatch(roles::contains);
+        Set<String> allowedTypes = new HashSet<>();
+        properties.roleTypes().forEach((role, types) -> {
+            if (roles.contains(role)) {
+                allowedTypes.addAll(types);
+            }
+        });
+        allowedTypes.removeAll(properties.restrictedTypes());
+        return new AccessRule(superuser, Set.copyOf(allowedTypes), Set.copyOf(properties.restrictedTypes()));
+    }
+
+    /**
+     * Скомпилированное правило доступа для набора ролей.
+     */
+    record AccessRule(boolean superuser, Set<String> allowedTypes, Set<String> restrictedTypes) {
+    }
+
+}
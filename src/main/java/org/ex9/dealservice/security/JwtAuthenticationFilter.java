@@ -1,5 +1,6 @@
 package org.ex9.dealservice.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -48,10 +49,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         final String jwt = authHeader.substring(7);
-        final String username = jwtService.extractUsername(jwt);
+        final Claims claims = jwtService.parseClaims(jwt);
+        final String username = claims.getSubject();
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            List<String> roles = jwtService.getRoles(jwt);
+            List<String> roles = jwtService.getRoles(claims);
 
             List<GrantedAuthority> authorities = roles.stream()
                     .map(SimpleGrantedAuthority::new)
@@ -1,7 +1,11 @@
 package org.ex9.dealservice.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
@@ -11,23 +15,43 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
-import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.function.Function;
 
 /**
  * Сервис для работы с JWT-токенами.
+ * <p>Ключ подписи и парсер создаются один раз при старте. Проверенные claims хранятся в ограниченном
+ * кэше по SHA-256 токена до истечения срока действия токена, поэтому подпись повторно
+ * предъявляемого токена проверяется только один раз.</p>
  * @author Краковцев Артём
  */
 @Service
 @Log4j2
 public class JwtService {
 
+    private final JwtParser parser;
+    private final Cache<String, Claims> claimsCache;
+
     /**
-     * Секретный ключ для подписи токена.
+     * @param secretKey    секретный ключ для подписи токена
+     * @param cacheMaxSize максимальное количество токенов в кэше
+     * @param cacheMaxTtl  максимальное время хранения claims токена без срока действия
      */
-    @Value("${jwt.secret}")
-    private String secretKey;
+    public JwtService(@Value("${jwt.secret}") String secretKey,
+                      @Value("${jwt.cache.max-size:10000}") long cacheMaxSize,
+                      @Value("${jwt.cache.max-ttl:${jwt.expiration}}") long cacheMaxTtl) {
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        this.claimsCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new ClaimsExpiry(Duration.ofMillis(cacheMaxTtl)))
+                .build();
+    }
 
     /**
      * Извлекает логин пользователя из токена.
@@ -36,15 +60,12 @@ public class JwtService {
      * @return Логин пользователя.
      */
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return parseClaims(token).getSubject();
     }
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSignInKey())
-                    .build()
-                    .parse(token);
+            parseClaims(token);
             return true;
         } catch (MalformedJwtException e) {
             log.error("Invalid JWT token: {}", e.getMessage());
@@ -66,36 +87,65 @@ public class JwtService {
      * @return Список ролей пользователя.
      */
     public List<String> getRoles(String token) {
-        return extractClaim(token, claims -> claims.get("roles", List.class));
+        return getRoles(parseClaims(token));
     }
 
-    private  <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    /**
+     * Извлекает роли пользователя из уже разобранных claims.
+     *
+     * @param claims claims токена.
+     * @return Список ролей пользователя.
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> getRoles(Claims claims) {
+        return claims.get("roles", List.class);
     }
 
     /**
-     * Извлекает claims из JWT-токена.
+     * Возвращает проверенные claims токена: из кэша или, при первом обращении, после проверки подписи.
+     * Недействительные токены в кэш не попадают.
      *
      * @param token JWT-токен.
      * @return Объект Claims с данными токена.
      */
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    public Claims parseClaims(String token) {
+        return claimsCache.get(digest(token), key -> parser.parseClaimsJws(token).getBody());
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
     /**
-     * Генерирует ключ используемый в jwt-токене.
-     *
-     * @return ключ токена.
+     * Срок хранения claims в кэше: до истечения токена, но не дольше заданного максимума.
      */
-    private Key getSignInKey() {
-        return Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+    private record ClaimsExpiry(Duration maxTtl) implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null) {
+                return maxTtl.toNanos();
+            }
+            long untilExpiration = Duration.ofMillis(expiration.getTime() - System.currentTimeMillis()).toNanos();
+            return Math.max(0, Math.min(untilExpiration, maxTtl.toNanos()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
     }
 
 }
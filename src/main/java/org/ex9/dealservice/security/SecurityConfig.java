@@ -1,6 +1,7 @@
 package org.ex9.dealservice.security;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -14,6 +15,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
+@EnableConfigurationProperties(DealAccessProperties.class)
 @RequiredArgsConstructor
 public class SecurityConfig {
 
@@ -27,7 +29,8 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/deal/**", "/deal-contractor/**", "/contractor-to-role/**",
-                                "/swagger-ui/**", "/v3/api-docs/**", "/deal-status/**", "/deal-type/**")
+                                "/swagger-ui/**", "/v3/api-docs/**", "/deal-status/**", "/deal-type/**",
+                                "/actuator/health", "/actuator/prometheus")
                         .permitAll()
                         .requestMatchers("/ui/**").authenticated()
                         .anyRequest().authenticated()
@@ -5,14 +5,18 @@ import org.ex9.dealservice.dto.ContractorToRoleDto;
 import org.ex9.dealservice.exception.ContractorToRoleNotFondException;
 import org.ex9.dealservice.mapper.ContractorToRoleMapper;
 import org.ex9.dealservice.model.ContractorToRole;
+import org.ex9.dealservice.model.DealContractor;
 import org.ex9.dealservice.repository.ContractorToRoleRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Set;
+
 /**
  * Сервис для управления ролями контрагентов в сделке.
  *
- * <p>Позволяет добавлять и логически удалять роли у контрагентов сделок.</p>
+ * <p>Позволяет добавлять и логически удалять роли у контрагентов сделок.
+ * Роли входят в представление сделки, поэтому после изменения сдвигается версия (ETag) сделки контрагента.</p>
  *
  * @author Краковцев Артём
  */
@@ -22,6 +26,7 @@ public class ContractorToRoleService {
 
     private final ContractorToRoleRepository repository;
     private final ContractorToRoleMapper mapper;
+    private final ETagService eTagService;
 
     /**
      * Добавляет новую роль контрагенту сделки.
@@ -32,6 +37,7 @@ public class ContractorToRoleService {
     public void addNewRole(ContractorToRoleDto dto) {
         ContractorToRole contractorToRole = mapper.toContractorToRole(dto);
         repository.save(contractorToRole);
+        touchDeal(contractorToRole);
     }
 
     /**
@@ -45,6 +51,14 @@ public class ContractorToRoleService {
         repository.findByIdAndIsActiveTrue(contractorToRole.getId())
                 .orElseThrow(() -> new ContractorToRoleNotFondException("ContractorToRole not found"));
         repository.logicalDeleteByIds(contractorToRole.getId().getContractorId(), contractorToRole.getId().getRoleId());
+        touchDeal(contractorToRole);
+    }
+
+    private void touchDeal(ContractorToRole contractorToRole) {
+        DealContractor contractor = contractorToRole.getContractor();
+        if (contractor != null && contractor.getDeal() != null) {
+            eTagService.touchDeals(Set.of(contractor.getDeal().getId()));
+        }
     }
 
 }
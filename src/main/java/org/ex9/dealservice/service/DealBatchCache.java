@@ -0,0 +1,108 @@
+package org.ex9.dealservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.ex9.dealservice.config.RedisConfig;
+import org.ex9.dealservice.dto.DealResponseDto;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Пакетный доступ к кэшу сделок {@link RedisConfig#DEALS}.
+ *
+ * <p>Использует те же ключи и сериализацию, что и {@code @Cacheable} в {@link DealService#getDealById},
+ * но читает все ключи одной командой {@code MGET} и записывает промахи одним конвейером {@code SET}.
+ * Ошибки Redis не прерывают запрос: сделки в этом случае загружаются из БД.</p>
+ *
+ * @author Краковцев Артём
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class DealBatchCache {
+
+    private final RedisCacheManager cacheManager;
+    private final RedisConnectionFactory connectionFactory;
+
+    /**
+     * Возвращает закэшированные сделки.
+     *
+     * @param ids идентификаторы сделок без повторов
+     * @return найденные в кэше сделки по идентификатору
+     */
+    public Map<UUID, DealResponseDto> getAll(List<UUID> ids) {
+        RedisCacheConfiguration config = cacheConfiguration();
+        byte[][] keys = ids.stream().map(id -> key(config, id)).toArray(byte[][]::new);
+
+        List<byte[]> values;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            values = connection.stringCommands().mGet(keys);
+        } catch (DataAccessException e) {
+            log.warn("Unable to read deals from cache: {}", e.getMessage());
+            return Map.of();
+        }
+
+        Map<UUID, DealResponseDto> deals = new HashMap<>();
+        for (int i = 0; values != null && i < ids.size(); i++) {
+            byte[] value = values.get(i);
+            if (value != null && config.getValueSerializationPair().read(ByteBuffer.wrap(value)) instanceof DealResponseDto deal) {
+                deals.put(ids.get(i), deal);
+            }
+        }
+        return deals;
+    }
+
+    /**
+     * Записывает сделки в кэш одним конвейером с тем же временем жизни, что и у кэша сделок.
+     *
+     * @param deals сделки по идентификатору
+     */
+    public void putAll(Map<UUID, DealResponseDto> deals) {
+        if (deals.isEmpty()) {
+            return;
+        }
+        RedisCacheConfiguration config = cacheConfiguration();
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.openPipeline();
+            deals.forEach((id, deal) -> {
+                Duration ttl = config.getTtlFunction().getTimeToLive(id, deal);
+                Expiration expiration = ttl.isZero() || ttl.isNegative() ? Expiration.persistent() : Expiration.from(ttl);
+                connection.stringCommands().set(key(config, id), bytes(config.getValueSerializationPair().write(deal)),
+                        expiration, RedisStringCommands.SetOption.upsert());
+            });
+            connection.closePipeline();
+        } catch (DataAccessException e) {
+            log.warn("Unable to write deals to cache: {}", e.getMessage());
+        }
+    }
+
+    private RedisCacheConfiguration cacheConfiguration() {
+        return ((RedisCache) cacheManager.getCache(RedisConfig.DEALS)).getCacheConfiguration();
+    }
+
+    private static byte[] key(RedisCacheConfiguration config, UUID id) {
+        String key = config.getKeyPrefixFor(RedisConfig.DEALS) + id;
+        return bytes(config.getKeySerializationPair().write(key));
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+}
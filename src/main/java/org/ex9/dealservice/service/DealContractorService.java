@@ -6,12 +6,16 @@ import org.ex9.dealservice.dto.DealContractorSaveRequestDto;
 import org.ex9.dealservice.dto.rabbit.ContractorDto;
 import org.ex9.dealservice.exception.DealContractorNotFondException;
 import org.ex9.dealservice.mapper.DealContractorMapper;
+import org.ex9.dealservice.model.Contractor;
 import org.ex9.dealservice.model.DealContractor;
+import org.ex9.dealservice.repository.ContractorRepository;
 import org.ex9.dealservice.repository.DealContractorRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -28,6 +32,8 @@ public class DealContractorService {
 
     private final DealContractorRepository dealContractorRepository;
     private final DealContractorMapper dealContractorMapper;
+    private final ContractorRepository contractorRepository;
+    private final ETagService eTagService;
 
     /**
      * Сохраняет нового или обновляет существующего контрагента сделки.
@@ -37,44 +43,46 @@ public class DealContractorService {
      */
     @Transactional
     public UUID saveDealContractor(DealContractorSaveRequestDto request) {
-
-        DealContractor dealContractor;
-        boolean isNewContractor = request.getId() == null;
-
-        if (isNewContractor) {
-            dealContractor = dealContractorMapper.toNewDealContractor(request);
-        } else {
-            var foundDealContractor = dealContractorRepository.findByIdAndIsActiveTrue(UUID.fromString(request.getId()))
-                    .orElseThrow(() -> new DealContractorNotFondException("Contractor with id '" + request.getId() + "' not found"));
-            dealContractor = dealContractorMapper.toUpdateDealContractor(request, foundDealContractor);
-        }
-
-        return dealContractorRepository.save(dealContractor).getId();
+        return saveDealContractor(request, null);
     }
 
     /**
      * Сохраняет нового или обновляет существующего контрагента сделки.
      *
+     * <p>Наименование и ИНН из запроса записываются в общий справочник контрагентов, поэтому
+     * при их изменении увеличиваются версии всех сделок с этим контрагентом.</p>
+     *
      * @param request DTO с данными контрагента сделки
+     * @param userId  пользователь, выполняющий изменение
      * @return UUID сохраненного контрагента
+     * @throws IllegalArgumentException если контрагента нет в справочнике, а наименование не передано
      */
     @Transactional
     public UUID saveDealContractor(DealContractorSaveRequestDto request, String userId) {
 
         DealContractor dealContractor;
         boolean isNewContractor = request.getId() == null;
+        Set<UUID> affectedDeals = new HashSet<>();
 
         if (isNewContractor) {
-            dealContractor = dealContractorMapper.toNewDealContractor(request);
+            var contractor = saveContractor(request, affectedDeals);
+            dealContractor = dealContractorMapper.toNewDealContractor(request, contractor);
             dealContractor.setCreateUserId(userId);
         } else {
             var foundDealContractor = dealContractorRepository.findByIdAndIsActiveTrue(UUID.fromString(request.getId()))
                     .orElseThrow(() -> new DealContractorNotFondException("Contractor with id '" + request.getId() + "' not found"));
-            dealContractor = dealContractorMapper.toUpdateDealContractor(request, foundDealContractor);
+            if (foundDealContractor.getDeal() != null) {
+                affectedDeals.add(foundDealContractor.getDeal().getId());
+            }
+            var contractor = saveContractor(request, affectedDeals);
+            dealContractor = dealContractorMapper.toUpdateDealContractor(request, foundDealContractor, contractor);
             dealContractor.setModifyUserId(userId);
         }
 
-        return dealContractorRepository.save(dealContractor).getId();
+        UUID id = dealContractorRepository.save(dealContractor).getId();
+        affectedDeals.addAll(affectedDeals(request, dealContractor));
+        eTagService.touchDeals(affectedDeals);
+        return id;
     }
 
     /**
@@ -85,39 +93,94 @@ public class DealContractorService {
     @Transactional
     public void deleteDealContractor(UUID dealContractorId) {
 
-        dealContractorRepository.findByIdAndIsActiveTrue(dealContractorId)
+        var dealContractor = dealContractorRepository.findByIdAndIsActiveTrue(dealContractorId)
                 .orElseThrow(() -> new DealContractorNotFondException("Deal contractor with id '" + dealContractorId + "' not found"));
 
         dealContractorRepository.logicalDeleteById(dealContractorId);
+        if (dealContractor.getDeal() != null) {
+            eTagService.touchDeals(Set.of(dealContractor.getDeal().getId()));
+        }
     }
 
+    /**
+     * Обновляет данные контрагента из события сервиса контрагентов.
+     *
+     * <p>Наименование и ИНН хранятся в справочнике контрагентов, поэтому обновляется одна строка
+     * независимо от количества сделок. Событие, более старое чем сохранённые данные, игнорируется.
+     * Версии сделок с этим контрагентом увеличиваются, а сами сделки удаляются из кэша.</p>
+     *
+     * @param contractorDto данные контрагента из сообщения
+     * @throws DealContractorNotFondException если контрагент не участвует ни в одной сделке
+     */
     @Transactional
     public void updateDealContractorFomRabbit(ContractorDto contractorDto) throws DealContractorNotFondException {
         String contractorId = contractorDto.getId();
 
-        List<DealContractor> dealContractors = dealContractorRepository.findAllByContractorIdAndIsActiveTrue(contractorId);
-
-        if (dealContractors.isEmpty()) {
-            log.warn("No deal contractors found for contractorId '{}'", contractorId);
-            throw new DealContractorNotFondException("Contractor with id '" + contractorId + "' not found");
+        int updated = contractorRepository.updateIfOlder(contractorId,
+                contractorDto.getName(),
+                contractorDto.getInn(),
+                contractorDto.getModifyDateTime(),
+                contractorDto.getModifyUserId());
+
+        if (updated == 0) {
+            if (!contractorRepository.existsById(contractorId)) {
+                log.warn("No deal contractors found for contractorId '{}'", contractorId);
+                throw new DealContractorNotFondException("Contractor with id '" + contractorId + "' not found");
+            }
+            log.info("Contractor '{}' is already up to date", contractorId);
+            return;
         }
 
-        dealContractors.forEach(dealContractor -> updateContractor(dealContractor, contractorDto));
-
+        eTagService.touchDeals(dealContractorRepository.findDealIdsByContractorId(contractorId));
     }
 
-    private void updateContractor(DealContractor dealContractor, ContractorDto contractorDto) {
-
-        if (dealContractor.getModifyDate().isAfter(contractorDto.getModifyDateTime())) {
-            return;
+    /**
+     * Находит контрагента в справочнике или создаёт нового.
+     *
+     * <p>Если в запросе передано наименование, отличающееся от справочника, записываются наименование и ИНН.
+     * Время изменения — это версия из сервиса контрагентов, и локальное сохранение его не меняет: следующее
+     * событие из сервиса контрагентов перезапишет локальные данные ({@link ContractorRepository#updateIfOlder}).
+     * Сделки с этим контрагентом добавляются в {@code affectedDeals}.</p>
+     *
+     * @throws IllegalArgumentException если контрагент новый, а наименование не передано
+     */
+    private Contractor saveContractor(DealContractorSaveRequestDto request, Set<UUID> affectedDeals) {
+        var found = contractorRepository.findById(request.getContractorId());
+        if (found.isEmpty()) {
+            if (request.getName() == null || request.getName().isBlank()) {
+                throw new IllegalArgumentException("Name is required for new contractor '" + request.getContractorId() + "'");
+            }
+            return contractorRepository.save(Contractor.builder()
+                    .id(request.getContractorId())
+                    .name(request.getName())
+                    .inn(request.getInn())
+                    .build());
         }
 
-        dealContractor.setName(contractorDto.getName());
-        dealContractor.setInn(contractorDto.getInn());
-        dealContractor.setModifyDate(contractorDto.getModifyDateTime());
-        dealContractor.setModifyUserId(contractorDto.getModifyUserId());
+        var contractor = found.get();
+        boolean changed = request.getName() != null
+                && (!request.getName().equals(contractor.getName()) || !Objects.equals(request.getInn(), contractor.getInn()));
+        if (!changed) {
+            return contractor;
+        }
+        contractor.setName(request.getName());
+        contractor.setInn(request.getInn());
+        affectedDeals.addAll(dealContractorRepository.findDealIdsByContractorId(contractor.getId()));
+        return contractorRepository.save(contractor);
+    }
 
-        dealContractorRepository.save(dealContractor);
+    /**
+     * Сделки, данные которых изменились при сохранении контрагента.
+     */
+    private Set<UUID> affectedDeals(DealContractorSaveRequestDto request, DealContractor dealContractor) {
+        Set<UUID> dealIds = new HashSet<>();
+        if (request.getDealId() != null) {
+            dealIds.add(request.getDealId());
+        }
+        if (dealContractor.getDeal() != null && dealContractor.getDeal().getId() != null) {
+            dealIds.add(dealContractor.getDeal().getId());
+        }
+        return dealIds;
     }
 
 }
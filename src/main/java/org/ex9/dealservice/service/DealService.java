@@ -3,28 +3,52 @@ package org.ex9.dealservice.service;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.ex9.dealservice.config.RedisConfig;
+import org.ex9.dealservice.dto.DealBatchItemDto;
 import org.ex9.dealservice.dto.DealChangeStatusDto;
+import org.ex9.dealservice.dto.DealPage;
 import org.ex9.dealservice.dto.DealResponseDto;
 import org.ex9.dealservice.dto.DealSaveRequestDto;
 import org.ex9.dealservice.dto.DealSearchRequestDto;
 import org.ex9.dealservice.dto.DealSumDto;
+import org.ex9.dealservice.dto.DealTotalMode;
+import org.ex9.dealservice.dto.DealView;
 import org.ex9.dealservice.exception.DealNotFondException;
 import org.ex9.dealservice.exception.DealStatusNotFondException;
+import org.ex9.dealservice.exception.DealVersionMismatchException;
+import org.ex9.dealservice.export.DealBatch;
+import org.ex9.dealservice.export.DealNdjsonStreamer;
+import org.ex9.dealservice.export.ExportFormat;
+import org.ex9.dealservice.export.ParallelDealExporter;
 import org.ex9.dealservice.mapper.DealMapper;
 import org.ex9.dealservice.model.Deal;
 import org.ex9.dealservice.repository.DealRepository;
+import org.ex9.dealservice.repository.DealRow;
 import org.ex9.dealservice.repository.DealSpecification;
 import org.ex9.dealservice.repository.DealStatusRepository;
 import org.ex9.dealservice.repository.DealSumRepository;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
 
 /**
  * Сервисный класс для управления сделками.
@@ -41,6 +65,11 @@ public class DealService {
     private final DealStatusRepository dealStatusRepository;
     private final DealMapper dealMapper;
     private final DealSumRepository dealSumRepository;
+    private final ParallelDealExporter parallelDealExporter;
+    private final DealBatchCache dealBatchCache;
+    private final DealNdjsonStreamer dealNdjsonStreamer;
+    private final PlatformTransactionManager transactionManager;
+    private final DealTotalEstimator dealTotalEstimator;
 
     /**
      * Создает новую сделку или обновляет существующую.
@@ -50,7 +79,7 @@ public class DealService {
      * @return UUID сохранённой сделки
      */
     @Transactional
-    @CacheEvict(key = "#request.id", cacheNames = RedisConfig.DEALS)
+    @CacheEvict(key = "#request.id", condition = "#request.id != null", cacheNames = RedisConfig.DEALS)
     public UUID dealSave(DealSaveRequestDto request) {
         Deal deal;
         boolean isNewDeal = request.getId() == null;
@@ -58,9 +87,7 @@ public class DealService {
         if (isNewDeal) {
             deal = dealMapper.toNewDeal(request);
         } else {
-            var foundDeal = dealRepository.findById(request.getId())
-                    .orElseThrow(() -> new DealNotFondException("Deal with id '" + request.getId() + "' not found"));
-            deal = dealMapper.toUpdateDeal(request, foundDeal);
+            deal = dealMapper.toUpdateDeal(request, findDealForUpdate(request.getId()));
         }
         var result = dealRepository.save(deal);
         addDealSum(request.getSum(), deal);
@@ -76,6 +103,7 @@ public class DealService {
      * @return UUID сохранённой сделки
      */
     @Transactional
+    @CacheEvict(key = "#request.id", condition = "#request.id != null", cacheNames = RedisConfig.DEALS)
     public UUID dealSave(DealSaveRequestDto request, String userId) {
         Deal deal;
         boolean isNewDeal = request.getId() == null;
@@ -84,9 +112,7 @@ public class DealService {
             deal = dealMapper.toNewDeal(request);
             deal.setCreateUserId(userId);
         } else {
-            var foundDeal = dealRepository.findById(request.getId())
-                    .orElseThrow(() -> new DealNotFondException("Deal with id '" + request.getId() + "' not found"));
-            deal = dealMapper.toUpdateDeal(request, foundDeal);
+            deal = dealMapper.toUpdateDeal(request, findDealForUpdate(request.getId()));
             deal.setModifyUserId(userId);
         }
         var result = dealRepository.save(deal);
@@ -95,6 +121,41 @@ public class DealService {
         return result.getId();
     }
 
+    /**
+     * Обновляет существующую сделку, если её версия совпадает с ожидаемой (заголовок {@code If-Match}).
+     * Версия повторно проверяется при фиксации транзакции, поэтому параллельное изменение также отклоняется.
+     *
+     * @param request         DTO с данными сделки
+     * @param expectedVersion версия сделки, которую видел клиент
+     * @return UUID сохранённой сделки
+     * @throws DealVersionMismatchException если сделка новая или её версия изменилась
+     */
+    @Transactional
+    @CacheEvict(key = "#request.id", condition = "#request.id != null", cacheNames = RedisConfig.DEALS)
+    public UUID dealSave(DealSaveRequestDto request, long expectedVersion) {
+        if (request.getId() == null) {
+            throw new DealVersionMismatchException("If-Match is not applicable to a new deal");
+        }
+        var foundDeal = findDealForUpdate(request.getId());
+        if (foundDeal.getVersion() == null || foundDeal.getVersion() != expectedVersion) {
+            throw new DealVersionMismatchException("Deal with id '" + request.getId() + "' has been modified");
+        }
+        var deal = dealMapper.toUpdateDeal(request, foundDeal);
+        var result = dealRepository.save(deal);
+        addDealSum(request.getSum(), deal);
+
+        return result.getId();
+    }
+
+    /**
+     * Загружает сделку для изменения; её версия увеличится при фиксации транзакции,
+     * даже если изменилась только сумма.
+     */
+    private Deal findDealForUpdate(UUID id) {
+        return dealRepository.findLockedById(id)
+                .orElseThrow(() -> new DealNotFondException("Deal with id '" + id + "' not found"));
+    }
+
     /**
      * Добавляет или обновляет сумму сделки.
      *
@@ -142,41 +203,163 @@ public class DealService {
         return dealMapper.toDealResponseDto(deal);
     }
 
+    /**
+     * Получает несколько сделок по списку идентификаторов.
+     *
+     * <p>Закэшированные сделки читаются из Redis одной командой, остальные загружаются из БД пакетом
+     * (сделки и по одному запросу на суммы, контрагентов и роли) и записываются в кэш одним конвейером.</p>
+     *
+     * @param ids идентификаторы сделок
+     * @return результаты в порядке запроса; для отсутствующих сделок {@code found = false}
+     */
+    @Transactional(readOnly = true)
+    public List<DealBatchItemDto> getDealsByIds(List<UUID> ids) {
+        List<UUID> distinctIds = ids.stream().distinct().toList();
+        Map<UUID, DealResponseDto> deals = new HashMap<>(dealBatchCache.getAll(distinctIds));
+
+        List<UUID> missingIds = distinctIds.stream().filter(id -> !deals.containsKey(id)).toList();
+        if (!missingIds.isEmpty()) {
+            Map<UUID, DealResponseDto> loaded = dealMapper.toDealResponseDtos(dealRepository.findAllByIdInAndIsActiveTrue(missingIds))
+                    .stream()
+                    .collect(Collectors.toMap(DealResponseDto::getId, Function.identity()));
+            dealBatchCache.putAll(loaded);
+            deals.putAll(loaded);
+        }
+
+        return ids.stream()
+                .map(id -> deals.containsKey(id) ? DealBatchItemDto.found(deals.get(id)) : DealBatchItemDto.notFound(id))
+                .toList();
+    }
+
     /**
      * Выполняет постраничный поиск активных сделок с поддержкой фильтрации и сортировки.
+     * Сделки выбираются строками {@link DealRow} без создания сущностей; в полном представлении
+     * суммы, контрагенты и роли загружаются тремя запросами на страницу, в кратком
+     * ({@link DealView#SUMMARY}) не запрашиваются.
+     *
+     * Общее количество считается в зависимости от {@link DealSearchRequestDto#getTotalMode()}.
      *
      * @param request параметры поиска и пагинации
-     * @return страница DTO сделок
+     * @return страница DTO сделок или срез без общего количества при {@link DealTotalMode#NONE}
      */
     @Transactional(readOnly = true)
-    public Page<DealResponseDto> searchDeals(@Valid DealSearchRequestDto request) {
-        Sort sort = Sort.unsorted();
-        if (request.getSortBy() != null && !request.getSortBy().isEmpty()) {
-            Sort.Direction direction = request.getSortDirection() != null && request.getSortDirection().equalsIgnoreCase("DESC")
-                    ? Sort.Direction.DESC
-                    : Sort.Direction.ASC;
-            sort = Sort.by(direction, request.getSortBy());
+    public Slice<DealResponseDto> searchDeals(@Valid DealSearchRequestDto request) {
+        PageRequest pageRequest = PageRequest.of(request.getPage(), request.getSize(), toSort(request));
+        DealView view = request.getView() == null ? DealView.FULL : request.getView();
+        DealTotalMode totalMode = request.getTotalMode() == null ? DealTotalMode.EXACT : request.getTotalMode();
+
+        Slice<DealRow> rows = dealRepository.findRows(request, pageRequest, view,
+                totalMode == DealTotalMode.ESTIMATED ? DealTotalMode.NONE : totalMode);
+        List<DealResponseDto> deals = view == DealView.SUMMARY
+                ? rows.getContent().stream().map(dealMapper::toSummaryDto).toList()
+                : dealMapper.toDealResponseDtosFromRows(rows.getContent());
+
+        if (rows instanceof Page<DealRow> page) {
+            return new PageImpl<>(deals, page.getPageable(), page.getTotalElements());
         }
+        if (totalMode == DealTotalMode.ESTIMATED) {
+            return toEstimatedPage(request, rows, deals);
+        }
+        return new SliceImpl<>(deals, rows.getPageable(), rows.hasNext());
+    }
 
-        PageRequest pageRequest = PageRequest.of(request.getPage(), request.getSize(), sort);
-        Page<Deal> deals = dealRepository.findAll(DealSpecification.searchDeals(request), pageRequest);
-        return deals.map(dealMapper::toDealResponseDto);
+    /**
+     * Собирает страницу с оценочным количеством. На последней странице количество известно точно,
+     * иначе берётся оценка, но не меньше уже просмотренных сделок и следующей за ними.
+     */
+    private DealPage<DealResponseDto> toEstimatedPage(DealSearchRequestDto request, Slice<DealRow> rows,
+                                                      List<DealResponseDto> deals) {
+        long known = rows.getPageable().getOffset() + rows.getNumberOfElements();
+        if (!rows.hasNext()) {
+            return new DealPage<>(deals, rows.getPageable(), known, false);
+        }
+        long estimate = dealTotalEstimator.estimate(request);
+        boolean capped = estimate > dealTotalEstimator.getCap();
+        long total = Math.max(capped ? dealTotalEstimator.getCap() : estimate, known + 1);
+        return new DealPage<>(deals, rows.getPageable(), total, capped);
     }
 
-    @Transactional(readOnly = true)
-    public byte[] exportDealsToExcel(@Valid DealSearchRequestDto request) {
-        Sort sort = Sort.unsorted();
-        if (request.getSortBy() != null && !request.getSortBy().isEmpty()) {
-            Sort.Direction direction = "DESC".equalsIgnoreCase(request.getSortDirection())
-                    ? Sort.Direction.DESC
-                    : Sort.Direction.ASC;
-            sort = Sort.by(direction, request.getSortBy());
+    /**
+     * Выгружает найденные сделки в excel файл, сообщая о количестве уже записанных сделок.
+     *
+     * @param request  параметры поиска и пагинации
+     * @param out      поток, в который записывается файл
+     * @param progress получает количество записанных сделок после каждой порции
+     */
+    public void exportDealsToExcel(@Valid DealSearchRequestDto request, OutputStream out, LongConsumer progress) {
+        exportDeals(request, ExportFormat.XLSX, out, progress);
+    }
+
+    /**
+     * Выгружает найденные сделки в указанном формате, записывая результат напрямую в выходной поток.
+     *
+     * <p>Если в запросе указан {@code exportAll}, выгружаются все подходящие сделки: партиции загружаются
+     * параллельно из одного снимка БД ({@link ParallelDealExporter}), а если параллельная выгрузка
+     * отключена, занята или не подходит по сортировке — читаются курсором БД порциями,
+     * без загрузки всего результата в память.
+     * В обоих случаях транзакция остаётся открытой до конца записи.</p>
+     *
+     * <p>Иначе выгружается одна страница: сделки и связанные с ними данные загружаются в отдельной
+     * транзакции, а файл записывается уже после её завершения, не удерживая соединение с БД.</p>
+     *
+     * @param request  параметры поиска и пагинации
+     * @param format   формат выгрузки
+     * @param out      поток, в который записывается выгрузка
+     * @param progress получает количество записанных сделок после каждой порции
+     */
+    public void exportDeals(@Valid DealSearchRequestDto request, ExportFormat format, OutputStream out, LongConsumer progress) {
+        var specification = DealSpecification.searchDeals(request);
+
+        if (request.isExportAll()) {
+            exportTransaction().executeWithoutResult(status -> {
+                if (!parallelDealExporter.tryExport(specification, toSort(request), format, out, progress)) {
+                    dealRepository.streamAll(specification, toSort(request), deals -> dealMapper.export(deals::iterator, format, out, progress));
+                }
+            });
+            return;
         }
 
-        PageRequest pageRequest = PageRequest.of(request.getPage(), request.getSize(), sort);
-        Page<Deal> deals = dealRepository.findAll(DealSpecification.searchDeals(request), pageRequest);
+        PageRequest pageRequest = PageRequest.of(request.getPage(), request.getSize(), toSort(request));
+        DealBatch page = exportTransaction().execute(status ->
+                dealMapper.loadBatch(dealRepository.findAll(specification, pageRequest).getContent()));
+
+        dealMapper.exportBatches(List.of(page).iterator(), format, out, progress);
+    }
 
-        return dealMapper.toExcel(deals);
+    /**
+     * Выдаёт все найденные сделки в формате NDJSON по мере чтения из курсора БД,
+     * без подсчёта общего количества и без загрузки всего результата в память.
+     *
+     * @param request параметры поиска; пагинация не используется
+     * @param out     поток, в который записываются сделки
+     * @return количество выданных сделок
+     */
+    @Transactional(readOnly = true)
+    public long streamDeals(@Valid DealSearchRequestDto request, OutputStream out) {
+        AtomicLong written = new AtomicLong();
+        dealRepository.streamAll(DealSpecification.searchDeals(request), toSort(request),
+                deals -> written.set(dealNdjsonStreamer.write(deals.iterator(), out)));
+        return written.get();
+    }
+
+    /**
+     * Транзакция чтения для выгрузки: все данные выгрузки читаются из одного снимка БД.
+     */
+    private TransactionTemplate exportTransaction() {
+        var template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        template.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        return template;
+    }
+
+    private Sort toSort(DealSearchRequestDto request) {
+        if (request.getSortBy() == null || request.getSortBy().isEmpty()) {
+            return Sort.unsorted();
+        }
+        Sort.Direction direction = "DESC".equalsIgnoreCase(request.getSortDirection())
+                ? Sort.Direction.DESC
+                : Sort.Direction.ASC;
+        return Sort.by(direction, request.getSortBy());
     }
 
 }
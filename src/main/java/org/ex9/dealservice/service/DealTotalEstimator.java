@@ -0,0 +1,126 @@
+package org.ex9.dealservice.service;
+
+import lombok.Getter;
+import org.ex9.dealservice.config.RedisConfig;
+import org.ex9.dealservice.dto.DealSearchRequestDto;
+import org.ex9.dealservice.dto.DealSumDto;
+import org.ex9.dealservice.repository.DealRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Оценка общего количества найденных сделок для {@link org.ex9.dealservice.dto.DealTotalMode#ESTIMATED}.
+ *
+ * <p>Сделки считаются до предела {@code deal.search.estimate.cap} + 1: точное количество за пределом
+ * пользователю не нужно, а БД прекращает поиск, набрав нужное число строк. Результат кэшируется
+ * в Redis на минуту по нормализованному набору фильтров, без пагинации и сортировки, поэтому
+ * листание страниц одного поиска не повторяет подсчёт.</p>
+ *
+ * @author Краковцев Артём
+ */
+@Service
+public class DealTotalEstimator {
+
+    private final DealRepository dealRepository;
+    private final CacheManager cacheManager;
+
+    /**Предел подсчёта ({@code deal.search.estimate.cap}); при большем количестве возвращается «cap+»*/
+    @Getter
+    private final int cap;
+
+    public DealTotalEstimator(DealRepository dealRepository,
+                              CacheManager cacheManager,
+                              @Value("${deal.search.estimate.cap:10000}") int cap) {
+        this.dealRepository = dealRepository;
+        this.cacheManager = cacheManager;
+        this.cap = cap;
+    }
+
+    /**
+     * Возвращает количество найденных сделок, но не больше {@code cap + 1}.
+     * Значение больше {@code cap} означает, что сделок больше предела.
+     *
+     * @param request параметры поиска; учитываются только фильтры
+     * @return количество сделок, не больше {@code cap + 1}
+     */
+    public long estimate(DealSearchRequestDto request) {
+        Cache cache = cacheManager.getCache(RedisConfig.DEAL_SEARCH_TOTALS);
+        String key = filterKey(request);
+        // JSON-сериализатор Redis читает небольшие числа как Integer, поэтому значение берётся как Number
+        Number cached = cache != null ? cache.get(key, Number.class) : null;
+        if (cached != null) {
+            return cached.longValue();
+        }
+        long total = dealRepository.countAtMost(request, cap + 1);
+        if (cache != null) {
+            cache.put(key, total);
+        }
+        return total;
+    }
+
+    /**
+     * Строит ключ кэша по фильтрам запроса: списки сортируются и очищаются от повторов,
+     * пагинация, сортировка и представление не учитываются.
+     */
+    static String filterKey(DealSearchRequestDto request) {
+        DealSumDto sum = request.getSum();
+        String filters = String.join("|",
+                Objects.toString(request.getDealId(), ""),
+                Objects.toString(request.getDescription(), ""),
+                Objects.toString(request.getAgreementNumber(), ""),
+                Objects.toString(request.getAgreementDateFrom(), ""),
+                Objects.toString(request.getAgreementDateTo(), ""),
+                Objects.toString(request.getAvailabilityDateFrom(), ""),
+                Objects.toString(request.getAvailabilityDateTo(), ""),
+                normalize(request.getTypeIds()),
+                normalize(request.getStatusIds()),
+                Objects.toString(request.getCloseDtFrom(), ""),
+                Objects.toString(request.getCloseDtTo(), ""),
+                Objects.toString(request.getBorrowerSearch(), ""),
+                Objects.toString(request.getWarrantySearch(), ""),
+                sum != null ? normalize(sum.getValue()) + " " + sum.getCurrency() : "");
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(filters.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Приводит сумму к каноническому виду, чтобы {@code 100.00} и {@code 100.0} давали один ключ.
+     */
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        try {
+            return new BigDecimal(value).stripTrailingZeros().toPlainString();
+        } catch (NumberFormatException e) {
+            return value;
+        }
+    }
+
+    private static String normalize(List<String> values) {
+        if (values == null) {
+            return "";
+        }
+        return values.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .collect(Collectors.joining(","));
+    }
+
+}
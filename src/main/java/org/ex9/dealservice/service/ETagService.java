@@ -0,0 +1,104 @@
+package org.ex9.dealservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.ex9.dealservice.config.RedisConfig;
+import org.ex9.dealservice.dto.DealResponseDto;
+import org.ex9.dealservice.exception.DealVersionMismatchException;
+import org.ex9.dealservice.repository.DealRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Сервис ETag для условных запросов к сделкам и справочникам.
+ *
+ * <p>ETag сделки строится по версии, сохранённой в закэшированном DTO сделки, поэтому ETag и тело ответа
+ * читаются из одной записи кэша. ETag справочника — по хэшу содержимого закэшированного списка.</p>
+ *
+ * @author Краковцев Артём
+ */
+@Service
+@RequiredArgsConstructor
+public class ETagService {
+
+    private final DealRepository dealRepository;
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Увеличивает версии сделок, у которых изменились связанные данные, и удаляет их из кэша.
+     *
+     * @param dealIds идентификаторы сделок
+     */
+    public void touchDeals(Collection<UUID> dealIds) {
+        if (dealIds.isEmpty()) {
+            return;
+        }
+        dealRepository.incrementVersion(dealIds);
+        Cache cache = cacheManager.getCache(RedisConfig.DEALS);
+        if (cache != null) {
+            dealIds.forEach(cache::evict);
+        }
+    }
+
+    /**
+     * Возвращает ETag справочника, вычисленный по его содержимому. ETag не меняется при истечении
+     * или очистке кэша, пока не изменились сами данные справочника.
+     *
+     * @param reference закэшированный список справочника, который возвращается в теле ответа
+     * @return ETag справочника
+     */
+    public String toReferenceETag(List<?> reference) {
+        try {
+            return "\"" + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(reference)) + "\"";
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize reference data for ETag", e);
+        }
+    }
+
+    /**
+     * Строит ETag сделки по её версии.
+     */
+    public static String toDealETag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Строит ETag по версии из того же DTO сделки, который возвращается в теле ответа,
+     * поэтому ETag и тело всегда соответствуют друг другу.
+     *
+     * @param deal DTO сделки
+     * @return ETag сделки или {@code null}, если версия неизвестна (запись кэша без версии)
+     */
+    public static String toDealETag(DealResponseDto deal) {
+        return deal.getVersion() != null ? toDealETag(deal.getVersion()) : null;
+    }
+
+    /**
+     * Разбирает значение заголовка {@code If-Match} в версию сделки.
+     * Слабые ETag и списки значений не поддерживаются, так как для {@code If-Match} нужно строгое сравнение.
+     *
+     * @param ifMatch значение заголовка
+     * @return ожидаемая версия сделки
+     * @throws DealVersionMismatchException если значение не является ETag сделки
+     */
+    public static long parseDealVersion(String ifMatch) {
+        String value = ifMatch.trim();
+        if (value.length() < 3 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+            throw new DealVersionMismatchException("If-Match '" + ifMatch + "' is not a deal ETag");
+        }
+        try {
+            return Long.parseLong(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new DealVersionMismatchException("If-Match '" + ifMatch + "' is not a deal ETag");
+        }
+    }
+
+}
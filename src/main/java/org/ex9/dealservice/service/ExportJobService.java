@@ -0,0 +1,284 @@
+package org.ex9.dealservice.service;
+
+import lombok.extern.log4j.Log4j2;
+import org.ex9.dealservice.config.ExportJobConfig;
+import org.ex9.dealservice.dto.DealSearchRequestDto;
+import org.ex9.dealservice.dto.ExportJobDto;
+import org.ex9.dealservice.exception.ExportJobNotFondException;
+import org.ex9.dealservice.exception.ExportJobNotReadyException;
+import org.ex9.dealservice.exception.ExportJobRejectedException;
+import org.ex9.dealservice.mapper.ExportJobMapper;
+import org.ex9.dealservice.model.ExportJob;
+import org.ex9.dealservice.model.ExportJobStatus;
+import org.ex9.dealservice.repository.ExportJobRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Сервисный класс для фоновой выгрузки сделок в excel.
+ *
+ * <p>Задача сохраняется в БД и выполняется в ограниченном пуле потоков {@link ExportJobConfig#EXPORT_JOB_EXECUTOR}.
+ * Готовый файл записывается в локальное хранилище {@code deal.export.jobs.directory} и удаляется
+ * по истечении {@code deal.export.jobs.ttl}. Изменения состояния задачи фиксируются в отдельных транзакциях,
+ * поэтому прогресс виден другим запросам во время выгрузки.</p>
+ *
+ * <p>Задача привязана к экземпляру сервиса ({@code deal.export.jobs.node-id}), который её выполняет и хранит файл:
+ * только он удаляет файл и переводит задачу в {@link ExportJobStatus#EXPIRED}. Экземпляр периодически подтверждает,
+ * что его задачи выполняются; задачи, оставшиеся без подтверждения дольше {@code deal.export.jobs.stale-timeout},
+ * и задачи, созданные до перезапуска экземпляра, завершаются ошибкой.</p>
+ *
+ * @author Краковцев Артём
+ */
+@Service
+@Log4j2
+public class ExportJobService {
+
+    private final ExportJobRepository exportJobRepository;
+    private final ExportJobMapper exportJobMapper;
+    private final DealService dealService;
+    private final TaskExecutor executor;
+    private final TransactionTemplate transactionTemplate;
+    private final Path directory;
+    private final Duration ttl;
+
+    /**Идентификатор этого экземпляра сервиса*/
+    private final String nodeId;
+
+    /**Время без подтверждения, после которого задача считается брошенной*/
+    private final Duration staleTimeout;
+
+    /**Момент запуска экземпляра: более ранние задачи этого экземпляра уже никто не выполнит*/
+    private final LocalDateTime startDate = LocalDateTime.now();
+
+    private static final List<ExportJobStatus> ACTIVE_STATUSES = List.of(ExportJobStatus.QUEUED, ExportJobStatus.RUNNING);
+
+    public ExportJobService(ExportJobRepository exportJobRepository,
+                            ExportJobMapper exportJobMapper,
+                            DealService dealService,
+                            @Qualifier(ExportJobConfig.EXPORT_JOB_EXECUTOR) TaskExecutor executor,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${deal.export.jobs.directory}") Path directory,
+                            @Value("${deal.export.jobs.ttl:1h}") Duration ttl,
+                            @Value("${deal.export.jobs.node-id:}") String nodeId,
+                            @Value("${deal.export.jobs.stale-timeout:5m}") Duration staleTimeout) {
+        this.exportJobRepository = exportJobRepository;
+        this.exportJobMapper = exportJobMapper;
+        this.dealService = dealService;
+        this.executor = executor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.directory = directory;
+        this.ttl = ttl;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? localHostName() : nodeId;
+        this.staleTimeout = staleTimeout;
+    }
+
+    /**
+     * Создаёт задачу выгрузки и ставит её в очередь.
+     *
+     * @param request параметры поиска сделок
+     * @return идентификатор задачи
+     * @throws ExportJobRejectedException если очередь выгрузок переполнена
+     */
+    public UUID submit(DealSearchRequestDto request) {
+        ExportJob job = exportJobRepository.save(ExportJob.builder()
+                .status(ExportJobStatus.QUEUED)
+                .request(request)
+                .processedDeals(0L)
+                .createDate(LocalDateTime.now())
+                .nodeId(nodeId)
+                .heartbeatDate(LocalDateTime.now())
+                .build());
+        UUID id = job.getId();
+
+        try {
+            executor.execute(() -> run(id));
+        } catch (TaskRejectedException e) {
+            update(id, rejected -> {
+                rejected.setStatus(ExportJobStatus.FAILED);
+                rejected.setError("Export queue is full");
+                rejected.setFinishDate(LocalDateTime.now());
+            });
+            throw new ExportJobRejectedException("Too many export jobs in progress, try again later");
+        }
+
+        log.info("Export job '{}' queued", id);
+        return id;
+    }
+
+    /**
+     * Возвращает текущее состояние задачи.
+     *
+     * @param id идентификатор задачи
+     * @return DTO задачи
+     * @throws ExportJobNotFondException если задача не найдена
+     */
+    public ExportJobDto getJob(UUID id) {
+        return exportJobMapper.toExportJobDto(findJob(id));
+    }
+
+    /**
+     * Возвращает путь к готовому файлу выгрузки.
+     *
+     * @param id идентификатор задачи
+     * @return путь к файлу
+     * @throws ExportJobNotFondException  если задача не найдена, файл удалён или недоступен на этом экземпляре
+     * @throws ExportJobNotReadyException если выгрузка ещё не завершена или завершилась ошибкой
+     */
+    public Path getResultFile(UUID id) {
+        ExportJob job = findJob(id);
+
+        if (job.getStatus() == ExportJobStatus.EXPIRED) {
+            throw new ExportJobNotFondException("Export file for job '" + id + "' has expired");
+        }
+        if (job.getStatus() != ExportJobStatus.DONE) {
+            throw new ExportJobNotReadyException("Export job '" + id + "' is " + job.getStatus());
+        }
+
+        Path file = Path.of(job.getFilePath());
+        if (!Files.isReadable(file)) {
+            throw new ExportJobNotFondException("Export file for job '" + id + "' not found");
+        }
+        return file;
+    }
+
+    /**
+     * Удаляет файлы выгрузок этого экземпляра с истёкшим сроком хранения.
+     * Задачи, созданные до появления привязки к экземпляру, истекают на том экземпляре, где найден их файл.
+     */
+    @Scheduled(fixedDelayString = "${deal.export.jobs.cleanup-interval:600000}")
+    public void deleteExpiredFiles() {
+        LocalDateTime now = LocalDateTime.now();
+        for (ExportJob job : exportJobRepository.findAllByStatusAndNodeIdAndExpireDateBefore(ExportJobStatus.DONE, nodeId, now)) {
+            if (deleteFile(job)) {
+                expire(job);
+            }
+        }
+        for (ExportJob job : exportJobRepository.findAllByStatusAndNodeIdIsNullAndExpireDateBefore(ExportJobStatus.DONE, now)) {
+            if (Files.exists(Path.of(job.getFilePath())) && deleteFile(job)) {
+                expire(job);
+            }
+        }
+    }
+
+    /**
+     * Завершает ошибкой задачи этого экземпляра, оставшиеся в очереди или в работе до его перезапуска.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void failOrphanedJobs() {
+        Integer failed = transactionTemplate.execute(status -> exportJobRepository.failOrphaned(nodeId, ACTIVE_STATUSES,
+                startDate, "Export was interrupted by a service restart", LocalDateTime.now()));
+        if (failed != null && failed > 0) {
+            log.warn("{} export jobs of node '{}' were interrupted by a restart", failed, nodeId);
+        }
+    }
+
+    /**
+     * Подтверждает, что задачи этого экземпляра выполняются, и завершает ошибкой задачи экземпляров,
+     * которые перестали это подтверждать.
+     */
+    @Scheduled(fixedDelayString = "${deal.export.jobs.heartbeat-interval:60000}")
+    public void heartbeat() {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> exportJobRepository.heartbeat(nodeId, ACTIVE_STATUSES, now));
+        Integer failed = transactionTemplate.execute(status -> exportJobRepository.failStale(ACTIVE_STATUSES,
+                now.minus(staleTimeout), "Export node stopped responding", now));
+        if (failed != null && failed > 0) {
+            log.warn("{} stale export jobs marked as failed", failed);
+        }
+    }
+
+    private void run(UUID id) {
+        ExportJob job = update(id, running -> {
+            running.setStatus(ExportJobStatus.RUNNING);
+            running.setStartDate(LocalDateTime.now());
+        });
+        Path file = directory.resolve(id + ".xlsx");
+
+        try {
+            Files.createDirectories(directory);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                dealService.exportDealsToExcel(job.getRequest(), out, processed ->
+                        transactionTemplate.executeWithoutResult(status -> exportJobRepository.updateProgress(id, processed)));
+            }
+            update(id, done -> {
+                done.setStatus(ExportJobStatus.DONE);
+                done.setFilePath(file.toAbsolutePath().toString());
+                done.setFinishDate(LocalDateTime.now());
+                done.setExpireDate(done.getFinishDate().plus(ttl));
+            });
+            log.info("Export job '{}' finished", id);
+        } catch (Exception e) {
+            log.error("Export job '{}' failed", id, e);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ex) {
+                log.warn("Unable to delete export file '{}': {}", file, ex.getMessage());
+            }
+            update(id, failed -> {
+                failed.setStatus(ExportJobStatus.FAILED);
+                failed.setError(e.getMessage());
+                failed.setFinishDate(LocalDateTime.now());
+            });
+        }
+    }
+
+    private boolean deleteFile(ExportJob job) {
+        try {
+            Files.deleteIfExists(Path.of(job.getFilePath()));
+            return true;
+        } catch (IOException e) {
+            log.warn("Unable to delete export file '{}': {}", job.getFilePath(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void expire(ExportJob job) {
+        update(job.getId(), expired -> expired.setStatus(ExportJobStatus.EXPIRED));
+        log.debug("Export job '{}' expired", job.getId());
+    }
+
+    private static String localHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Unable to resolve host name, set deal.export.jobs.node-id", e);
+        }
+    }
+
+    private ExportJob findJob(UUID id) {
+        return exportJobRepository.findById(id)
+                .orElseThrow(() -> new ExportJobNotFondException("Export job with id '" + id + "' not found"));
+    }
+
+    private ExportJob update(UUID id, Consumer<ExportJob> change) {
+        return transactionTemplate.execute(status -> {
+            ExportJob job = findJob(id);
+            change.accept(job);
+            return exportJobRepository.save(job);
+        });
+    }
+
+}
@@ -0,0 +1,77 @@
+package org.ex9.dealservice.util;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+
+/**
+ * Накапливает ширину колонок excel документа по длине записываемых значений.
+ * <p>Заменяет {@link Sheet#autoSizeColumn(int)}, который заново измеряет каждую ячейку
+ * шрифтовыми метриками AWT: здесь ширина обновляется за O(1) при записи ячейки
+ * и ограничивается настраиваемыми минимумом и максимумом.</p>
+ *
+ * @author Краковцев Артём
+ */
+public final class ExcelColumnWidths {
+
+    /**Ширина одного символа в единицах POI (1/256 символа)*/
+    private static final int CHAR_WIDTH = 256;
+    /**Запас на отступы и жирный шрифт заголовка, в символах*/
+    private static final int PADDING = 2;
+    /**Максимальная ширина колонки, допускаемая Excel, в символах*/
+    private static final int EXCEL_MAX_WIDTH = 255;
+
+    private final int[] widths;
+    private final int minWidth;
+    private final int maxWidth;
+
+    /**
+     * @param columns  количество колонок
+     * @param minWidth минимальная ширина колонки в символах
+     * @param maxWidth максимальная ширина колонки в символах
+     */
+    public ExcelColumnWidths(int columns, int minWidth, int maxWidth) {
+        this.widths = new int[columns];
+        this.minWidth = minWidth;
+        this.maxWidth = Math.min(maxWidth, EXCEL_MAX_WIDTH - PADDING);
+    }
+
+    /**
+     * Создаёт ячейку через {@link ExcelStyleUtil#createStyledCell} и учитывает длину её значения.
+     */
+    public void createStyledCell(Row row, int columnIndex, String value, CellStyle style) {
+        track(columnIndex, value);
+        ExcelStyleUtil.createStyledCell(row, columnIndex, value, style);
+    }
+
+    /**
+     * Учитывает длину значения колонки. Для многострочных значений учитывается самая длинная строка.
+     */
+    public void track(int columnIndex, String value) {
+        if (value == null || widths[columnIndex] >= maxWidth) {
+            return;
+        }
+        int longest = 0;
+        int current = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '\n') {
+                longest = Math.max(longest, current);
+                current = 0;
+            } else {
+                current++;
+            }
+        }
+        widths[columnIndex] = Math.max(widths[columnIndex], Math.max(longest, current));
+    }
+
+    /**
+     * Выставляет накопленную ширину колонкам листа.
+     */
+    public void applyTo(Sheet sheet) {
+        for (int i = 0; i < widths.length; i++) {
+            int width = Math.max(minWidth, Math.min(widths[i], maxWidth));
+            sheet.setColumnWidth(i, (width + PADDING) * CHAR_WIDTH);
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package org.ex9.dealservice.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Утилитарный класс для отдачи файлов без копирования через heap.
+ * <p>Если контейнер поддерживает sendfile (Tomcat NIO), передача файла делегируется ему и
+ * выполняется ядром напрямую из page cache в сокет. Иначе файл передаётся через
+ * {@link FileChannel#transferTo}.</p>
+ *
+ * @author Краковцев Артём
+ */
+public final class FileTransferUtil {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private FileTransferUtil() {
+    }
+
+    /**
+     * Записывает содержимое файла в тело ответа. Заголовки, кроме длины, должны быть выставлены заранее.
+     *
+     * @param file     отдаваемый файл
+     * @param request  текущий запрос
+     * @param response текущий ответ
+     */
+    public static void sendFile(Path file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long size = Files.size(file);
+        response.setContentLengthLong(size);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+package org.ex9.dealservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redis.testcontainers.RedisContainer;
+import org.ex9.dealservice.dto.DealSaveRequestDto;
+import org.ex9.dealservice.dto.DealSearchRequestDto;
+import org.ex9.dealservice.dto.DealSumDto;
+import org.ex9.dealservice.export.ExportFormat;
+import org.ex9.dealservice.model.Deal;
+import org.ex9.dealservice.repository.DealRepository;
+import org.ex9.dealservice.service.DealService;
+import org.hibernate.LazyInitializationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+class DealControllerLazyLoadingTest {
+
+    @Container
+    static final RedisContainer REDIS = new RedisContainer("redis:latest");
+
+    @DynamicPropertySource
+    static void redisProps(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.redis.host", REDIS::getHost);
+        registry.add("spring.data.redis.port", REDIS::getFirstMappedPort);
+    }
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    DealService dealService;
+    @Autowired
+    DealRepository dealRepository;
+
+    @Value("${spring.jpa.open-in-view}")
+    boolean openInView;
+
+    String agreementNumber;
+    UUID id;
+
+    @BeforeEach
+    void setup() {
+        agreementNumber = "LAZY-" + UUID.randomUUID();
+        id = dealService.dealSave(DealSaveRequestDto.builder()
+                .description("Lazy loading check")
+                .agreementNumber(agreementNumber)
+                .agreementDate(LocalDate.now())
+                .typeId("CREDIT")
+                .sum(new DealSumDto("100.00", "USD"))
+                .build());
+    }
+
+    @Test
+    void openInView_isDisabled() {
+        assertFalse(openInView);
+    }
+
+    @Test
+    void lazyAssociation_outsideTransaction_throws() {
+        Deal deal = dealRepository.findById(id).orElseThrow();
+
+        assertThrows(LazyInitializationException.class, () -> deal.getStatus().getName());
+    }
+
+    @Test
+    void getDeal_mapsAssociationsInsideTransaction() throws Exception {
+        mockMvc.perform(get("/deal/deal/" + id).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.type.name").value("Кредитная сделка"))
+                .andExpect(jsonPath("$.status.id").value("DRAFT"))
+                .andExpect(jsonPath("$.sum[0].currency").value("USD"));
+    }
+
+    @Test
+    void searchDeals_mapsAssociationsInsideTransaction() throws Exception {
+        var request = DealSearchRequestDto.builder()
+                .agreementNumber(agreementNumber)
+                .page(0)
+                .size(10)
+                .build();
+
+        mockMvc.perform(post("/deal/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].type.name").value("Кредитная сделка"))
+                .andExpect(jsonPath("$.content[0].sum[0].currency").value("USD"));
+    }
+
+    @Test
+    void exportPage_writesFileAfterTransaction() throws Exception {
+        var request = DealSearchRequestDto.builder()
+                .agreementNumber(agreementNumber)
+                .page(0)
+                .size(10)
+                .build();
+
+        MvcResult result = mockMvc.perform(post("/deal/search/export")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(ExportFormat.CSV_VALUE)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Кредитная сделка")))
+                .andExpect(content().string(containsString("Доллар США")));
+    }
+
+}
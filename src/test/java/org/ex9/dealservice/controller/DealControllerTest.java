@@ -141,7 +141,7 @@ class DealControllerTest {
                         .contentType(String.valueOf(MediaType.APPLICATION_JSON))
                         .content(invalidRequest))
                 .andExpect(status().isBadRequest())
-                .andExpect(jsonPath("$.message").value("Validation failed: value must be a valid decimal number with two decimal places (100000.00)"))
+                .andExpect(jsonPath("$.message").value("Validation failed: value must be a valid decimal number with up to 36 integer digits and two decimal places (100000.00)"))
                 .andExpect(jsonPath("$.timestamp").exists())
                 .andExpect(jsonPath("$.timestamp").isString());
 
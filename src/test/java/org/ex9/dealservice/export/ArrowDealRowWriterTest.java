@@ -0,0 +1,157 @@
+package org.ex9.dealservice.export;
+
+import org.apache.arrow.compression.CommonsCompressionFactory;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.DictionaryEncoder;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.ex9.dealservice.model.Contractor;
+import org.ex9.dealservice.model.Currency;
+import org.ex9.dealservice.model.Deal;
+import org.ex9.dealservice.model.DealContractor;
+import org.ex9.dealservice.model.DealStatus;
+import org.ex9.dealservice.model.DealSum;
+import org.ex9.dealservice.model.DealType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArrowDealRowWriterTest {
+
+    private static final List<String> TYPES = List.of("Кредитная сделка", "Лизинг");
+    private static final List<String> STATUSES = List.of("Черновик", "Активная");
+    private static final List<String> CURRENCIES = List.of("Рубль", "Евро");
+
+    @Test
+    void testWrite_roundTripsSchemaDictionariesNullsAndDecimals() throws Exception {
+        UUID dealId = UUID.randomUUID();
+        Deal deal = Deal.builder()
+                .id(dealId)
+                .agreementNumber("AG-1")
+                .agreementDate(LocalDate.of(2024, 3, 1))
+                .type(DealType.builder().id("LEASE").name("Лизинг").build())
+                .status(DealStatus.builder().id("ACTIVE").name("Активная").build())
+                .build();
+        DealSum sum = new DealSum();
+        sum.setSum(new BigDecimal("123456789012345678901234567890123456.78"));
+        sum.setCurrency(currency("Евро"));
+        sum.setIsMain(true);
+        DealContractor contractor = DealContractor.builder()
+                .contractor(Contractor.builder().id("C1").name("ООО Ромашка").build())
+                .build();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (var writer = new ArrowDealRowWriter(out, TYPES, STATUSES, CURRENCIES)) {
+            writer.writeDeal(deal);
+            writer.writeSum(deal, sum);
+            writer.writeContractor(deal, contractor, "Заемщик");
+            writer.finish();
+        }
+
+        try (var allocator = new RootAllocator();
+             var reader = new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator, CommonsCompressionFactory.INSTANCE)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            List<String> names = root.getSchema().getFields().stream().map(Field::getName).toList();
+            assertEquals(List.of("row_type", "deal_id", "description", "agreement_number", "agreement_date",
+                    "agreement_start_dt", "availability_date", "deal_type", "status", "sum", "currency", "is_main",
+                    "contractor_name", "contractor_inn", "contractor_roles"), names);
+            assertEquals(new ArrowType.Decimal(38, 2, 128), root.getSchema().findField("sum").getType());
+
+            assertTrue(reader.loadNextBatch());
+            assertEquals(3, root.getRowCount());
+            assertEquals(TYPES, dictionary(reader, root, "deal_type"));
+            assertEquals(CURRENCIES, dictionary(reader, root, "currency"));
+
+            assertEquals(List.of("deal", "sum", "contractor"), decode(reader, root, "row_type"));
+            assertEquals(Arrays.asList("Лизинг", null, null), decode(reader, root, "deal_type"));
+            assertEquals(Arrays.asList("Активная", null, null), decode(reader, root, "status"));
+            assertEquals(Arrays.asList(null, "Евро", null), decode(reader, root, "currency"));
+
+            VarCharVector ids = (VarCharVector) root.getVector("deal_id");
+            for (int row = 0; row < 3; row++) {
+                assertEquals(dealId.toString(), ids.getObject(row).toString());
+            }
+
+            VarCharVector description = (VarCharVector) root.getVector("description");
+            assertTrue(description.isNull(0));
+            assertEquals(LocalDate.of(2024, 3, 1), LocalDate.ofEpochDay(((DateDayVector) root.getVector("agreement_date")).get(0)));
+            assertTrue(root.getVector("availability_date").isNull(0));
+
+            DecimalVector sums = (DecimalVector) root.getVector("sum");
+            assertTrue(sums.isNull(0));
+            assertEquals(new BigDecimal("123456789012345678901234567890123456.78"), sums.getObject(1));
+            assertTrue(sums.isNull(2));
+            assertEquals(true, ((BitVector) root.getVector("is_main")).getObject(1));
+
+            assertEquals("ООО Ромашка", ((VarCharVector) root.getVector("contractor_name")).getObject(2).toString());
+            assertTrue(root.getVector("contractor_inn").isNull(2));
+            assertEquals("Заемщик", ((VarCharVector) root.getVector("contractor_roles")).getObject(2).toString());
+
+            assertFalse(reader.loadNextBatch());
+        }
+    }
+
+    @Test
+    void testWriteSum_exceedsArrowPrecision_throwsIllegalArgument() throws Exception {
+        Deal deal = Deal.builder().id(UUID.randomUUID()).build();
+        DealSum sum = new DealSum();
+        sum.setSum(new BigDecimal("1234567890123456789012345678901234567.00"));
+
+        try (var writer = new ArrowDealRowWriter(new ByteArrayOutputStream(), TYPES, STATUSES, CURRENCIES)) {
+            assertThrows(IllegalArgumentException.class, () -> writer.writeSum(deal, sum));
+        }
+    }
+
+    @Test
+    void testClose_withoutFinish_releasesMemoryAndIsIdempotent() throws Exception {
+        var writer = new ArrowDealRowWriter(new ByteArrayOutputStream(), TYPES, STATUSES, CURRENCIES);
+        writer.writeDeal(Deal.builder().id(UUID.randomUUID()).build());
+
+        writer.close();
+        writer.close();
+    }
+
+    private static Currency currency(String name) {
+        Currency currency = new Currency();
+        currency.setName(name);
+        return currency;
+    }
+
+    private static List<String> dictionary(ArrowStreamReader reader, VectorSchemaRoot root, String name) throws Exception {
+        long dictionaryId = root.getSchema().findField(name).getDictionary().getId();
+        var values = (VarCharVector) reader.getDictionaryVectors().get(dictionaryId).getVector();
+        return IntStream.range(0, values.getValueCount())
+                .mapToObj(index -> values.getObject(index).toString())
+                .toList();
+    }
+
+    private static List<String> decode(ArrowStreamReader reader, VectorSchemaRoot root, String name) throws Exception {
+        FieldVector indexes = root.getVector(name);
+        long dictionaryId = indexes.getField().getDictionary().getId();
+        try (var decoded = (VarCharVector) DictionaryEncoder.decode(indexes, reader.getDictionaryVectors().get(dictionaryId))) {
+            return IntStream.range(0, root.getRowCount())
+                    .mapToObj(row -> decoded.isNull(row) ? null : decoded.getObject(row).toString())
+                    .toList();
+        }
+    }
+
+}
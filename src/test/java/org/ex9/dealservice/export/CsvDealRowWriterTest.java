@@ -0,0 +1,70 @@
+package org.ex9.dealservice.export;
+
+import org.ex9.dealservice.model.Contractor;
+import org.ex9.dealservice.model.Currency;
+import org.ex9.dealservice.model.Deal;
+import org.ex9.dealservice.model.DealContractor;
+import org.ex9.dealservice.model.DealStatus;
+import org.ex9.dealservice.model.DealSum;
+import org.ex9.dealservice.model.DealType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvDealRowWriterTest {
+
+    private final UUID dealId = UUID.fromString("c9ddcc2a-d927-4904-89a0-7e666aae1644");
+
+    @Test
+    void testWrite_quotesCommasQuotesAndNewlines() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Deal deal = Deal.builder()
+                .id(dealId)
+                .description("Line one\nline \"two\", end")
+                .agreementNumber("AG,1")
+                .agreementDate(LocalDate.of(2024, 1, 2))
+                .type(DealType.builder().id("CREDIT").name("Кредитная сделка").build())
+                .status(DealStatus.builder().id("DRAFT").name("Черновик").build())
+                .build();
+
+        var writer = new CsvDealRowWriter(out);
+        writer.writeDeal(deal);
+        writer.finish();
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n", -1);
+        assertEquals(String.join(",", DealRowWriter.HEADERS), lines[0]);
+        assertEquals(dealId + ",\"Line one\nline \"\"two\"\", end\",\"AG,1\",2024-01-02,,,Кредитная сделка,Черновик,,,,,,", lines[1]);
+        assertEquals("", lines[2]);
+    }
+
+    @Test
+    void testWrite_sumAndContractorRows_onlyTheirColumnsAndDealId() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Deal deal = Deal.builder().id(dealId).build();
+        Currency currency = new Currency();
+        currency.setName("Доллар США");
+        DealSum sum = new DealSum();
+        sum.setSum(new BigDecimal("1000.50"));
+        sum.setCurrency(currency);
+        sum.setIsMain(true);
+        DealContractor contractor = DealContractor.builder()
+                .contractor(Contractor.builder().id("C1").name("ООО \"Рога, копыта\"").inn("123").build())
+                .build();
+
+        var writer = new CsvDealRowWriter(out);
+        writer.writeSum(deal, sum);
+        writer.writeContractor(deal, contractor, "Заемщик, Поручитель");
+        writer.finish();
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(dealId + ",,,,,,,,1000.50,Доллар США,Да,,,", lines[1]);
+        assertEquals(dealId + ",,,,,,,,,,,\"ООО \"\"Рога, копыта\"\"\",123,\"Заемщик, Поручитель\"", lines[2]);
+    }
+
+}
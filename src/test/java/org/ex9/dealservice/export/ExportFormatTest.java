@@ -0,0 +1,51 @@
+package org.ex9.dealservice.export;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExportFormatTest {
+
+    @Test
+    void testFromAccept_noHeaderOrWildcard_xlsx() {
+        assertEquals(ExportFormat.XLSX, ExportFormat.fromAccept(null));
+        assertEquals(ExportFormat.XLSX, ExportFormat.fromAccept(""));
+        assertEquals(ExportFormat.XLSX, ExportFormat.fromAccept("*/*"));
+    }
+
+    @Test
+    void testFromAccept_exactType_matchingFormat() {
+        assertEquals(ExportFormat.CSV, ExportFormat.fromAccept("text/csv"));
+        assertEquals(ExportFormat.NDJSON, ExportFormat.fromAccept("application/x-ndjson"));
+        assertEquals(ExportFormat.ARROW, ExportFormat.fromAccept("application/vnd.apache.arrow.stream"));
+    }
+
+    @Test
+    void testFromAccept_qValues_highestQualityWins() {
+        assertEquals(ExportFormat.NDJSON, ExportFormat.fromAccept("text/csv;q=0.5, application/x-ndjson;q=0.9"));
+        assertEquals(ExportFormat.CSV, ExportFormat.fromAccept("application/x-ndjson;q=0.1, text/csv"));
+    }
+
+    @Test
+    void testFromAccept_zeroQuality_notAcceptable() {
+        assertEquals(ExportFormat.NDJSON, ExportFormat.fromAccept("text/csv;q=0, application/x-ndjson;q=0.2"));
+    }
+
+    @Test
+    void testFromAccept_wildcardSubtype_firstFormatOfType() {
+        assertEquals(ExportFormat.CSV, ExportFormat.fromAccept("text/*"));
+    }
+
+    @Test
+    void testFromAccept_unsupportedType_xlsx() {
+        assertEquals(ExportFormat.XLSX, ExportFormat.fromAccept("application/pdf"));
+    }
+
+    @Test
+    void testFromAccept_malformedHeader_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> ExportFormat.fromAccept("text/csv;q=abc"));
+        assertThrows(IllegalArgumentException.class, () -> ExportFormat.fromAccept("not a media type"));
+    }
+
+}
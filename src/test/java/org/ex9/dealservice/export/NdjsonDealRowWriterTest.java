@@ -0,0 +1,90 @@
+package org.ex9.dealservice.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ex9.dealservice.model.Contractor;
+import org.ex9.dealservice.model.Currency;
+import org.ex9.dealservice.model.Deal;
+import org.ex9.dealservice.model.DealContractor;
+import org.ex9.dealservice.model.DealSum;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NdjsonDealRowWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testWrite_oneObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        UUID dealId = UUID.randomUUID();
+        Deal deal = Deal.builder()
+                .id(dealId)
+                .description("multi\nline \"description\"")
+                .build();
+        Currency currency = new Currency();
+        currency.setName("Евро");
+        DealSum sum = new DealSum();
+        sum.setSum(new BigDecimal("12.30"));
+        sum.setCurrency(currency);
+        sum.setIsMain(false);
+        DealContractor contractor = DealContractor.builder()
+                .contractor(Contractor.builder().id("C1").name("Contractor").build())
+                .build();
+
+        var writer = new NdjsonDealRowWriter(out);
+        writer.writeDeal(deal);
+        writer.writeSum(deal, sum);
+        writer.writeContractor(deal, contractor, null);
+        writer.finish();
+
+        String content = out.toString(StandardCharsets.UTF_8);
+        assertTrue(content.endsWith("\n"));
+        String[] lines = content.split("\n");
+        assertEquals(3, lines.length);
+
+        JsonNode dealRow = objectMapper.readTree(lines[0]);
+        assertEquals("deal", dealRow.get("type").asText());
+        assertEquals(dealId.toString(), dealRow.get("dealId").asText());
+        assertEquals("multi\nline \"description\"", dealRow.get("description").asText());
+        assertTrue(dealRow.get("agreementNumber").isNull());
+
+        JsonNode sumRow = objectMapper.readTree(lines[1]);
+        assertEquals("sum", sumRow.get("type").asText());
+        assertTrue(lines[1].contains("\"sum\":12.30"));
+        assertEquals("Евро", sumRow.get("currency").asText());
+        assertEquals(false, sumRow.get("isMain").asBoolean());
+
+        JsonNode contractorRow = objectMapper.readTree(lines[2]);
+        assertEquals("contractor", contractorRow.get("type").asText());
+        assertEquals(dealId.toString(), contractorRow.get("dealId").asText());
+        assertTrue(contractorRow.get("roles").isNull());
+    }
+
+    @Test
+    void testFinish_doesNotCloseOutputStream() throws Exception {
+        var out = new ByteArrayOutputStream() {
+            private boolean closed;
+
+            @Override
+            public void close() {
+                closed = true;
+            }
+        };
+
+        var writer = new NdjsonDealRowWriter(out);
+        writer.writeDeal(Deal.builder().id(UUID.randomUUID()).build());
+        writer.finish();
+
+        assertEquals(false, out.closed);
+        assertEquals(1, out.toString(StandardCharsets.UTF_8).split("\n").length);
+    }
+
+}
@@ -0,0 +1,120 @@
+package org.ex9.dealservice.export;
+
+import org.ex9.dealservice.mapper.DealMapper;
+import org.ex9.dealservice.model.Deal;
+import org.ex9.dealservice.repository.DealRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ParallelDealExporterTest {
+
+    @Mock
+    private DealRepository dealRepository;
+
+    @Mock
+    private DealMapper dealMapper;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final Specification<Deal> specification = (root, query, cb) -> null;
+
+    private ParallelDealExporter exporter;
+
+    @AfterEach
+    void tearDown() {
+        if (exporter != null) {
+            exporter.shutdown();
+        }
+    }
+
+    @Test
+    void testTryExport_disabled_fallsBack() {
+        exporter = new ParallelDealExporter(dealRepository, dealMapper, transactionManager, false, 2, 2, 1);
+
+        assertFalse(exporter.tryExport(specification, Sort.unsorted(), ExportFormat.CSV, new ByteArrayOutputStream(), exported -> { }));
+        verifyNoInteractions(dealRepository, dealMapper);
+    }
+
+    @Test
+    void testTryExport_sorted_fallsBack() {
+        exporter = new ParallelDealExporter(dealRepository, dealMapper, transactionManager, true, 2, 2, 1);
+
+        assertFalse(exporter.tryExport(specification, Sort.by("agreementDate"), ExportFormat.CSV, new ByteArrayOutputStream(), exported -> { }));
+        verifyNoInteractions(dealRepository, dealMapper);
+    }
+
+    @Test
+    void testTryExport_loadsPartitionsBetweenBoundsInOrder() {
+        exporter = new ParallelDealExporter(dealRepository, dealMapper, transactionManager, true, 2, 2, 1);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        List<Deal> firstDeals = List.of(Deal.builder().id(UUID.randomUUID()).build(), Deal.builder().id(first).build());
+        List<Deal> secondDeals = List.of(Deal.builder().id(UUID.randomUUID()).build(), Deal.builder().id(second).build());
+        List<Deal> lastDeals = List.of(Deal.builder().id(UUID.randomUUID()).build());
+
+        when(dealRepository.exportSnapshot()).thenReturn("00000003-0000001B-1");
+        when(dealRepository.findPartitionBound(specification, null, 2)).thenReturn(first);
+        when(dealRepository.findPartitionBound(specification, first, 2)).thenReturn(second);
+        when(dealRepository.findPartitionBound(specification, second, 2)).thenReturn(null);
+        when(dealRepository.findPartition(specification, null, first)).thenReturn(firstDeals);
+        when(dealRepository.findPartition(specification, first, second)).thenReturn(secondDeals);
+        when(dealRepository.findPartition(eq(specification), eq(second), isNull())).thenReturn(lastDeals);
+        when(dealMapper.loadBatch(any())).thenAnswer(invocation -> new DealBatch(invocation.getArgument(0), Map.of(), Map.of(), Map.of()));
+        List<List<Deal>> written = new ArrayList<>();
+        doAnswer(invocation -> {
+            Iterator<DealBatch> batches = invocation.getArgument(0);
+            batches.forEachRemaining(batch -> written.add(batch.deals()));
+            return null;
+        }).when(dealMapper).exportBatches(any(), eq(ExportFormat.CSV), any(), any());
+
+        assertTrue(exporter.tryExport(specification, Sort.unsorted(), ExportFormat.CSV, new ByteArrayOutputStream(), exported -> { }));
+
+        assertEquals(List.of(firstDeals, secondDeals, lastDeals), written);
+        verify(dealRepository, times(3)).importSnapshot("00000003-0000001B-1");
+    }
+
+    @Test
+    void testTryExport_concurrentLimitReached_fallsBack() {
+        exporter = new ParallelDealExporter(dealRepository, dealMapper, transactionManager, true, 2, 2, 1);
+        when(dealRepository.exportSnapshot()).thenReturn("00000003-0000001B-1");
+        List<Boolean> nested = new ArrayList<>();
+        doAnswer(invocation -> {
+            nested.add(exporter.tryExport(specification, Sort.unsorted(), ExportFormat.CSV, new ByteArrayOutputStream(), exported -> { }));
+            return null;
+        }).when(dealMapper).exportBatches(any(), any(), any(), any());
+
+        assertTrue(exporter.tryExport(specification, Sort.unsorted(), ExportFormat.CSV, new ByteArrayOutputStream(), exported -> { }));
+        assertEquals(List.of(false), nested);
+
+        assertTrue(exporter.tryExport(specification, Sort.unsorted(), ExportFormat.CSV, new ByteArrayOutputStream(), exported -> { }));
+        assertEquals(List.of(false, false), nested);
+    }
+
+}
@@ -1,8 +1,10 @@
 package org.ex9.dealservice.listener;
 
 import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.ex9.dealservice.dto.rabbit.ContractorDto;
 import org.ex9.dealservice.exception.DealContractorNotFondException;
+import org.ex9.dealservice.metrics.ContractorMetrics;
 import org.ex9.dealservice.model.InboxEvent;
 import org.ex9.dealservice.repository.InboxEventRepository;
 import org.ex9.dealservice.service.DealContractorService;
@@ -11,6 +13,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
@@ -34,6 +37,11 @@ class ContractorListenerTest {
     @Mock
     private Channel channel;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private ContractorMetrics contractorMetrics = new ContractorMetrics(meterRegistry);
+
     @InjectMocks
     private ContractorListener contractorListener;
 
@@ -61,6 +69,8 @@ class ContractorListenerTest {
         verify(dealContractorService).updateDealContractorFomRabbit(contractorDto);
         verify(inboxEventRepository).save(any(InboxEvent.class));
         verify(channel).basicAck(deliveryTag, false);
+        assertEquals(1, meterRegistry.get("deal.contractor.lag").timer().count());
+        assertEquals(1, meterRegistry.get("deal.contractor.processing").tag("outcome", "success").timer().count());
     }
 
     @Test
@@ -71,6 +81,7 @@ class ContractorListenerTest {
 
         verify(dealContractorService, never()).updateDealContractorFomRabbit(any());
         verify(channel).basicAck(deliveryTag, false);
+        assertEquals(1, meterRegistry.get("deal.contractor.duplicates").counter().count());
     }
 
     @Test
@@ -83,6 +94,7 @@ class ContractorListenerTest {
 
         verify(inboxEventRepository).save(any(InboxEvent.class));
         verify(channel).basicAck(deliveryTag, false);
+        assertEquals(1, meterRegistry.get("deal.contractor.not.found").counter().count());
     }
 
     @Test
@@ -94,6 +106,7 @@ class ContractorListenerTest {
         contractorListener.handle(contractorDto, channel, deliveryTag, messageId.toString(), null);
 
         verify(channel).basicReject(deliveryTag, false);
+        assertEquals(1, meterRegistry.get("deal.contractor.retries").tag("attempt", "0").counter().count());
     }
 
     @Test
@@ -109,6 +122,7 @@ class ContractorListenerTest {
 
         verify(channel).basicAck(deliveryTag, false);
         verify(channel, never()).basicReject(deliveryTag, false);
+        assertEquals(1, meterRegistry.get("deal.contractor.dropped").tag("attempt", "5").counter().count());
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+package org.ex9.dealservice.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers
+class DealIndexUsageTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16");
+
+    private static final int DEALS = 5000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        Integer deals = jdbcTemplate.queryForObject("SELECT count(*) FROM deal", Integer.class);
+        if (deals != null && deals > 0) {
+            return;
+        }
+        jdbcTemplate.update("""
+                INSERT INTO contractor (id, name, inn)
+                SELECT 'C' || n, 'Contractor ' || n, lpad(n::text, 10, '0')
+                FROM generate_series(1, ?) n
+                """, DEALS);
+        jdbcTemplate.update("""
+                INSERT INTO deal (id, agreement_number, agreement_date, availability_date, close_dt, type_id, status_id, is_active)
+                SELECT md5('deal' || n)::uuid, 'AG-' || n, DATE '2020-01-01' + n % 1000, DATE '2021-01-01' + n % 1000,
+                       TIMESTAMP '2022-01-01' + n * INTERVAL '1 hour', 'CREDIT', 'DRAFT', n % 4 <> 0
+                FROM generate_series(1, ?) n
+                """, DEALS);
+        jdbcTemplate.update("""
+                INSERT INTO deal_sum (deal_id, sum, currency_id, is_main, is_active)
+                SELECT d.id, s * 100, 'USD', s = 1, s = 1
+                FROM deal d CROSS JOIN generate_series(1, 3) s
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO deal_contractor (id, deal_id, contractor_id, main, is_active)
+                SELECT md5(d.id::text || c)::uuid, d.id, 'C' || (1 + abs(hashtext(d.id::text || c)) % ?), c = 1, c = 1
+                FROM deal d CROSS JOIN generate_series(1, 2) c
+                """, DEALS);
+        jdbcTemplate.update("""
+                INSERT INTO contractor_to_role (contractor_id, role_id, is_active)
+                SELECT dc.id, r.id, dc.is_active
+                FROM deal_contractor dc CROSS JOIN (VALUES ('BORROWER'), ('DRAWER')) r(id)
+                """);
+        jdbcTemplate.execute("VACUUM ANALYZE");
+    }
+
+    @Test
+    void dealSums_byDeal_useActiveIndex() {
+        assertUsesIndex("idx_deal_sum_deal_id_active",
+                "SELECT deal_id, sum, currency_id FROM deal_sum WHERE deal_id IN ('" + dealId(1) + "', '" + dealId(2) + "') AND is_active = true");
+    }
+
+    @Test
+    void dealContractors_byDeal_useActiveIndex() {
+        assertUsesIndex("idx_deal_contractor_deal_id_active",
+                "SELECT id, contractor_id FROM deal_contractor WHERE deal_id = '" + dealId(1) + "' AND is_active = true");
+    }
+
+    @Test
+    void dealContractors_byContractor_useActiveIndex() {
+        assertUsesIndex("idx_deal_contractor_contractor_id_active",
+                "SELECT deal_id FROM deal_contractor WHERE contractor_id = 'C1' AND is_active = true");
+    }
+
+    @Test
+    void contractorRoles_byContractor_useActiveIndex() {
+        UUID contractorId = jdbcTemplate.queryForObject("SELECT id FROM deal_contractor WHERE is_active LIMIT 1", UUID.class);
+        assertUsesIndex("idx_contractor_to_role_contractor_id_active",
+                "SELECT role_id FROM contractor_to_role WHERE contractor_id = '" + contractorId + "' AND is_active = true");
+    }
+
+    @Test
+    void searchPage_sortedByAgreementDate_usesActiveIndex() {
+        assertUsesIndex("idx_deal_agreement_date_active",
+                "SELECT d.id FROM deal d WHERE d.is_active = true ORDER BY d.agreement_date DESC LIMIT 20");
+    }
+
+    @Test
+    void searchPage_sortedByCreateDate_usesActiveIndex() {
+        assertUsesIndex("idx_deal_create_date_active",
+                "SELECT d.id FROM deal d WHERE d.is_active = true ORDER BY d.create_date LIMIT 20");
+    }
+
+    private UUID dealId(int n) {
+        return jdbcTemplate.queryForObject("SELECT md5(?)::uuid", UUID.class, "deal" + n);
+    }
+
+    private void assertUsesIndex(String index, String sql) {
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+        assertTrue(plan.contains(index), () -> "Expected " + index + " in plan:\n" + plan);
+    }
+
+}
@@ -0,0 +1,156 @@
+package org.ex9.dealservice.repository;
+
+import org.ex9.dealservice.dto.DealSearchRequestDto;
+import org.ex9.dealservice.dto.DealSumDto;
+import org.ex9.dealservice.dto.DealTotalMode;
+import org.ex9.dealservice.dto.DealView;
+import org.ex9.dealservice.model.Deal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(DealSearchSql.class)
+@Testcontainers
+class DealSearchConsistencyTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16");
+
+    private static final int DEALS = 120;
+
+    @Autowired
+    private DealRepository dealRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("""
+                INSERT INTO contractor (id, name, inn)
+                SELECT 'C' || n, 'Contractor ' || n, lpad(n::text, 10, '0')
+                FROM generate_series(1, 10) n
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO deal (id, description, agreement_number, agreement_date, availability_date, close_dt,
+                                  type_id, status_id, is_active)
+                SELECT md5('deal' || n)::uuid,
+                       CASE WHEN n % 5 = 0 THEN NULL ELSE 'Описание ' || n % 7 END,
+                       CASE WHEN n % 2 = 0 THEN 'AG-' || n ELSE 'ag-' || n END,
+                       DATE '2024-01-01' + n,
+                       CASE WHEN n % 6 = 0 THEN NULL ELSE DATE '2024-06-01' + n END,
+                       CASE WHEN n % 3 = 0 THEN NULL ELSE TIMESTAMP '2025-01-01' + n * INTERVAL '1 day' END,
+                       (ARRAY['CREDIT', 'OVERDRAFT', 'OTHER'])[1 + n % 3],
+                       (ARRAY['DRAFT', 'ACTIVE', 'CLOSED'])[1 + n % 4 % 3],
+                       n % 9 <> 0
+                FROM generate_series(1, ?) n
+                """, DEALS);
+        jdbcTemplate.update("""
+                INSERT INTO deal_sum (deal_id, sum, currency_id, is_main, is_active)
+                SELECT d.id, 100 * (1 + (s + abs(hashtext(d.id::text))) % 3), (ARRAY['USD', 'EUR', 'RUB'])[s], s = 1, s <> 3
+                FROM deal d CROSS JOIN generate_series(1, 3) s
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO deal_contractor (id, deal_id, contractor_id, main, is_active)
+                SELECT md5(d.id::text || c)::uuid, d.id, 'C' || (1 + abs(hashtext(d.id::text || c)) % 10), c = 1,
+                       c = 1 OR abs(hashtext(d.id::text)) % 2 = 0
+                FROM deal d CROSS JOIN generate_series(1, 2) c
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO contractor_to_role (contractor_id, role_id, is_active)
+                SELECT dc.id, CASE WHEN dc.main THEN 'BORROWER' ELSE 'WARRANTY' END, abs(hashtext(dc.id::text)) % 5 <> 0
+                FROM deal_contractor dc
+                """);
+    }
+
+    @Test
+    void nativeSearch_matchesSpecification_forEveryFilter() {
+        Map<String, DealSearchRequestDto> requests = new LinkedHashMap<>();
+        requests.put("no filters", request().build());
+        requests.put("deal id", request().dealId(dealId(4)).build());
+        requests.put("inactive deal id", request().dealId(dealId(9)).build());
+        requests.put("description", request().description("Описание 3").build());
+        requests.put("agreement number, case insensitive", request().agreementNumber("Ag-1").build());
+        requests.put("agreement date", request()
+                .agreementDateFrom(LocalDate.of(2024, 1, 20)).agreementDateTo(LocalDate.of(2024, 2, 10)).build());
+        requests.put("agreement date, open range", request().agreementDateFrom(LocalDate.of(2024, 1, 20)).build());
+        requests.put("availability date", request()
+                .availabilityDateFrom(LocalDate.of(2024, 6, 10)).availabilityDateTo(LocalDate.of(2024, 7, 10)).build());
+        requests.put("types", request().typeIds(List.of("OVERDRAFT", "OTHER")).build());
+        requests.put("statuses", request().statusIds(List.of("ACTIVE")).build());
+        requests.put("close date", request()
+                .closeDtFrom(LocalDateTime.of(2025, 1, 10, 0, 0)).closeDtTo(LocalDateTime.of(2025, 2, 20, 0, 0)).build());
+        requests.put("borrower by name", request().borrowerSearch("contractor 1").build());
+        requests.put("borrower by inn", request().borrowerSearch("00000003").build());
+        requests.put("warranty by id", request().warrantySearch("c2").build());
+        requests.put("sum value", request().sum(new DealSumDto("200.00", null)).build());
+        requests.put("sum currency", request().sum(new DealSumDto(null, "EUR")).build());
+        requests.put("sum value and currency", request().sum(new DealSumDto("300.00", "EUR")).build());
+        requests.put("inactive sum currency", request().sum(new DealSumDto(null, "RUB")).build());
+        requests.put("combined", request()
+                .typeIds(List.of("CREDIT", "OTHER"))
+                .statusIds(List.of("DRAFT", "ACTIVE"))
+                .agreementNumber("AG")
+                .borrowerSearch("contractor")
+                .sum(new DealSumDto("100.00", "USD"))
+                .build());
+
+        List<Executable> checks = new ArrayList<>();
+        requests.forEach((name, request) -> checks.add(() -> {
+            List<UUID> expected = dealRepository.findAll(DealSpecification.searchDeals(request)).stream()
+                    .map(Deal::getId)
+                    .sorted()
+                    .toList();
+            List<UUID> actual = dealRepository.findRows(request, Pageable.unpaged(), DealView.SUMMARY, DealTotalMode.EXACT)
+                    .getContent().stream()
+                    .map(DealRow::id)
+                    .sorted()
+                    .toList();
+
+            assertEquals(expected, actual, name);
+            assertEquals(expected.size(), dealRepository.countAtMost(request, DEALS + 1), name + " (count)");
+        }));
+        assertAll(checks);
+    }
+
+    @Test
+    void seed_coversEveryFilter() {
+        assertFalse(dealRepository.findAll(DealSpecification.searchDeals(request()
+                .borrowerSearch("contractor").warrantySearch("contractor").sum(new DealSumDto("300.00", "EUR"))
+                .build())).isEmpty());
+    }
+
+    private static DealSearchRequestDto.DealSearchRequestDtoBuilder request() {
+        return DealSearchRequestDto.builder().page(0).size(DEALS);
+    }
+
+    private UUID dealId(int n) {
+        return jdbcTemplate.queryForObject("SELECT md5(?)::uuid", UUID.class, "deal" + n);
+    }
+
+}
@@ -0,0 +1,102 @@
+package org.ex9.dealservice.repository;
+
+import org.ex9.dealservice.dto.DealSearchRequestDto;
+import org.ex9.dealservice.dto.DealSumDto;
+import org.ex9.dealservice.dto.DealView;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DealSearchSqlTest {
+
+    private final DealSearchSql searchSql = new DealSearchSql();
+
+    @Test
+    void testShapeOf_differentValuesSameFilters_sameShape() {
+        var first = DealSearchRequestDto.builder()
+                .typeIds(List.of("CREDIT"))
+                .agreementNumber("AG-1")
+                .build();
+        var second = DealSearchRequestDto.builder()
+                .typeIds(List.of("CREDIT", "OTHER", "OVERDRAFT"))
+                .agreementNumber("AG-2")
+                .page(5)
+                .build();
+
+        int shape = DealSearchFilter.shapeOf(first);
+
+        assertEquals(shape, DealSearchFilter.shapeOf(second));
+        assertEquals((1 << DealSearchFilter.TYPE.ordinal()) | (1 << DealSearchFilter.AGREEMENT_NUMBER.ordinal()), shape);
+        assertSame(searchSql.rows(shape, Sort.by("agreementDate"), DealView.FULL),
+                searchSql.rows(DealSearchFilter.shapeOf(second), Sort.by("agreementDate"), DealView.FULL));
+    }
+
+    @Test
+    void testShapeOf_incompleteRange_notIncluded() {
+        var request = DealSearchRequestDto.builder()
+                .closeDtFrom(LocalDateTime.now())
+                .build();
+
+        assertEquals(0, DealSearchFilter.shapeOf(request));
+        assertEquals("SELECT count(*) FROM deal d WHERE d.is_active = true", searchSql.count(0));
+    }
+
+    @Test
+    void testCountAtMost_countsInsideLimitedSubquery() {
+        assertEquals("SELECT count(*) FROM (SELECT 1 FROM deal d WHERE d.is_active = true LIMIT :limit) t", searchSql.countAtMost(0));
+        assertSame(searchSql.countAtMost(0), searchSql.countAtMost(0));
+    }
+
+    @Test
+    void testRows_sumFilters_combinedInOneSubquery() {
+        var request = DealSearchRequestDto.builder()
+                .sum(new DealSumDto("100.00", "USD"))
+                .build();
+        int shape = DealSearchFilter.shapeOf(request);
+        Map<String, Object> parameters = new HashMap<>();
+
+        String sql = searchSql.rows(shape, Sort.unsorted(), DealView.SUMMARY);
+        DealSearchFilter.bind(request, shape, parameters::put);
+
+        assertTrue(sql.contains("EXISTS (SELECT 1 FROM deal_sum ds WHERE ds.deal_id = d.id AND ds.is_active = true"
+                + " AND ds.sum = :sumValue AND ds.currency_id = :sumCurrency)"));
+        assertTrue(sql.contains("CAST(NULL AS text) AS description"));
+        assertFalse(sql.contains("ORDER BY"));
+        assertEquals(Map.of("sumValue", new BigDecimal("100.00"), "sumCurrency", "USD"), parameters);
+    }
+
+    @Test
+    void testRows_sortAndSearch_mappedToColumnsAndLowercasePattern() {
+        var request = DealSearchRequestDto.builder()
+                .borrowerSearch("Roga")
+                .build();
+        int shape = DealSearchFilter.shapeOf(request);
+        Map<String, Object> parameters = new HashMap<>();
+
+        String sql = searchSql.rows(shape, Sort.by(Sort.Direction.DESC, "closeDt").and(Sort.by("createDate")), DealView.FULL);
+        DealSearchFilter.bind(request, shape, parameters::put);
+
+        assertTrue(sql.endsWith(" ORDER BY d.close_dt DESC, d.create_date ASC"));
+        assertTrue(sql.contains("cr.category = 'BORROWER'"));
+        assertEquals(Map.of("borrower", "%roga%"), parameters);
+    }
+
+    @Test
+    void testRows_unknownSortProperty_throwsException() {
+        Sort sort = Sort.by("description; DROP TABLE deal");
+
+        assertThrows(IllegalArgumentException.class, () -> searchSql.rows(0, sort, DealView.FULL));
+    }
+
+}
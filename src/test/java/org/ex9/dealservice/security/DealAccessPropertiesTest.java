@@ -0,0 +1,37 @@
+package org.ex9.dealservice.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DealAccessPropertiesTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withInitializer(new ConfigDataApplicationContextInitializer())
+            .withUserConfiguration(AccessPropertiesConfig.class);
+
+    @Test
+    void testBind_applicationYml_accessSettingsLoaded() {
+        contextRunner.run(context -> {
+            DealAccessProperties properties = context.getBean(DealAccessProperties.class);
+
+            assertEquals(List.of("SUPERUSER", "DEAL_SUPERUSER"), properties.superuserRoles());
+            assertEquals(Map.of("CREDIT_USER", List.of("CREDIT"), "OVERDRAFT_USER", List.of("OVERDRAFT")), properties.roleTypes());
+            assertEquals(List.of("OTHER"), properties.restrictedTypes());
+            assertEquals(1024, properties.maxRoleSets());
+        });
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(DealAccessProperties.class)
+    static class AccessPropertiesConfig {
+    }
+
+}
@@ -0,0 +1,116 @@
+package org.ex9.dealservice.security;
+
+import org.ex9.dealservice.model.Deal;
+import org.ex9.dealservice.model.DealType;
+import org.ex9.dealservice.repository.DealRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DealTypeAccessPolicyTest {
+
+    @Mock
+    private DealRepository dealRepository;
+
+    private DealTypeAccessPolicy policy;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new DealAccessProperties(
+                List.of("SUPERUSER", "DEAL_SUPERUSER"),
+                Map.of("CREDIT_USER", List.of("CREDIT"), "OVERDRAFT_USER", List.of("OVERDRAFT")),
+                List.of("OTHER"),
+                null);
+        policy = new DealTypeAccessPolicy(properties, dealRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testGetAllowedTypes_superuser_returnsRequestedTypes() {
+        authenticate("SUPERUSER");
+        List<String> types = List.of("CREDIT", "OTHER");
+
+        assertSame(types, policy.getAllowedTypes(types));
+    }
+
+    @Test
+    void testGetAllowedTypes_creditUser_filtersTypes() {
+        authenticate("CREDIT_USER");
+
+        assertEquals(List.of("CREDIT"), policy.getAllowedTypes(List.of("CREDIT", "OVERDRAFT")));
+    }
+
+    @Test
+    void testGetAllowedTypes_restrictedOrNoTypes_throwsAccessDenied() {
+        authenticate("CREDIT_USER", "OVERDRAFT_USER");
+
+        assertThrows(AccessDeniedException.class, () -> policy.getAllowedTypes(List.of("CREDIT", "OTHER")));
+        assertThrows(AccessDeniedException.class, () -> policy.getAllowedTypes(null));
+    }
+
+    @Test
+    void testGetAllowedTypes_noMatchingType_throwsAccessDenied() {
+        authenticate("OVERDRAFT_USER");
+
+        assertThrows(AccessDeniedException.class, () -> policy.getAllowedTypes(List.of("CREDIT")));
+    }
+
+    @Test
+    void testRuleFor_sameRoleSet_returnsCachedRule() {
+        var rule = policy.ruleFor(List.of(new SimpleGrantedAuthority("CREDIT_USER"), new SimpleGrantedAuthority("OVERDRAFT_USER")));
+
+        assertSame(rule, policy.ruleFor(List.of(new SimpleGrantedAuthority("OVERDRAFT_USER"), new SimpleGrantedAuthority("CREDIT_USER"))));
+    }
+
+    @Test
+    void testCheckDeal_superuser_doesNotLoadDeal() {
+        authenticate("DEAL_SUPERUSER");
+
+        assertDoesNotThrow(() -> policy.checkDeal(UUID.randomUUID()));
+        verifyNoInteractions(dealRepository);
+    }
+
+    @Test
+    void testCheckDeal_foreignType_throwsAccessDenied() {
+        authenticate("CREDIT_USER");
+        UUID dealId = UUID.randomUUID();
+        DealType type = new DealType();
+        type.setId("OVERDRAFT");
+        Deal deal = new Deal();
+        deal.setType(type);
+        when(dealRepository.findById(dealId)).thenReturn(Optional.of(deal));
+
+        assertThrows(AccessDeniedException.class, () -> policy.checkDeal(dealId));
+    }
+
+    private void authenticate(String... roles) {
+        var authorities = Arrays.stream(roles).map(SimpleGrantedAuthority::new).toList();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("user", null, authorities));
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.ex9.dealservice.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "test_secret_code_for_jwt_service_1234567890";
+
+    private final JwtService jwtService = new JwtService(SECRET, 100, 60_000);
+
+    @Test
+    void testParseClaims_validToken_returnsCachedClaims() {
+        String token = token(SECRET, new Date(System.currentTimeMillis() + 60_000));
+
+        Claims first = jwtService.parseClaims(token);
+        Claims second = jwtService.parseClaims(token);
+
+        assertSame(first, second);
+        assertEquals("user", first.getSubject());
+        assertEquals(List.of("DEAL_SUPERUSER"), jwtService.getRoles(first));
+        assertEquals("user", jwtService.extractUsername(token));
+        assertTrue(jwtService.validateToken(token));
+    }
+
+    @Test
+    void testParseClaims_expiredToken_throwsAndIsNotCached() {
+        String token = token(SECRET, new Date(System.currentTimeMillis() - 1_000));
+
+        assertThrows(ExpiredJwtException.class, () -> jwtService.parseClaims(token));
+        assertThrows(ExpiredJwtException.class, () -> jwtService.parseClaims(token));
+        assertFalse(jwtService.validateToken(token));
+    }
+
+    @Test
+    void testParseClaims_foreignSignature_throwsSignatureException() {
+        String token = token("another_secret_code_for_jwt_service_0987654321", new Date(System.currentTimeMillis() + 60_000));
+
+        assertThrows(SignatureException.class, () -> jwtService.parseClaims(token));
+    }
+
+    private String token(String secret, Date expiration) {
+        return Jwts.builder()
+                .setSubject("user")
+                .claim("roles", List.of("DEAL_SUPERUSER"))
+                .setExpiration(expiration)
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+
+}
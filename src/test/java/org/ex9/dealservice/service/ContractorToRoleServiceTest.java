@@ -5,6 +5,8 @@ import org.ex9.dealservice.exception.ContractorToRoleNotFondException;
 import org.ex9.dealservice.mapper.ContractorToRoleMapper;
 import org.ex9.dealservice.model.ContractorToRole;
 import org.ex9.dealservice.model.ContractorToRoleId;
+import org.ex9.dealservice.model.Deal;
+import org.ex9.dealservice.model.DealContractor;
 import org.ex9.dealservice.repository.ContractorToRoleRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,9 +15,11 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +31,9 @@ class ContractorToRoleServiceTest {
     @Mock
     private ContractorToRoleMapper mapper;
 
+    @Mock
+    private ETagService eTagService;
+
     @InjectMocks
     private ContractorToRoleService service;
 
@@ -35,6 +42,7 @@ class ContractorToRoleServiceTest {
         ContractorToRoleDto dto = new ContractorToRoleDto();
         dto.setContractorId(UUID.randomUUID());
         dto.setRoleId("BORROWER");
+        UUID dealId = UUID.randomUUID();
 
         var id = new ContractorToRoleId();
         id.setContractorId(dto.getContractorId());
@@ -43,6 +51,7 @@ class ContractorToRoleServiceTest {
         ContractorToRole contractorToRole = new ContractorToRole();
         contractorToRole.setId(id);
         contractorToRole.setIsActive(true);
+        contractorToRole.setContractor(dealContractor(dto.getContractorId(), dealId));
 
         when(mapper.toContractorToRole(dto)).thenReturn(contractorToRole);
         when(repository.save(contractorToRole)).thenReturn(contractorToRole);
@@ -51,6 +60,7 @@ class ContractorToRoleServiceTest {
 
         verify(mapper, times(1)).toContractorToRole(dto);
         verify(repository, times(1)).save(contractorToRole);
+        verify(eTagService, times(1)).touchDeals(Set.of(dealId));
     }
 
     @Test
@@ -58,6 +68,7 @@ class ContractorToRoleServiceTest {
         ContractorToRoleDto dto = new ContractorToRoleDto();
         dto.setContractorId(UUID.randomUUID());
         dto.setRoleId("WARRANTY");
+        UUID dealId = UUID.randomUUID();
 
         var id = new ContractorToRoleId();
         id.setContractorId(dto.getContractorId());
@@ -66,6 +77,7 @@ class ContractorToRoleServiceTest {
         ContractorToRole contractorToRole = new ContractorToRole();
         contractorToRole.setId(id);
         contractorToRole.setIsActive(true);
+        contractorToRole.setContractor(dealContractor(dto.getContractorId(), dealId));
 
         when(mapper.toContractorToRole(dto)).thenReturn(contractorToRole);
         when(repository.findByIdAndIsActiveTrue(id)).thenReturn(Optional.of(contractorToRole));
@@ -77,6 +89,7 @@ class ContractorToRoleServiceTest {
         verify(mapper, times(1)).toContractorToRole(dto);
         verify(repository, times(1)).findByIdAndIsActiveTrue(id);
         verify(repository, times(1)).logicalDeleteByIds(dto.getContractorId(), dto.getRoleId());
+        verify(eTagService, times(1)).touchDeals(Set.of(dealId));
     }
 
     @Test
@@ -102,5 +115,13 @@ class ContractorToRoleServiceTest {
         verify(mapper, times(1)).toContractorToRole(dto);
         verify(repository, times(1)).findByIdAndIsActiveTrue(id);
         verify(repository, never()).logicalDeleteByIds(dto.getContractorId(), dto.getRoleId());
+        verify(eTagService, never()).touchDeals(any());
+    }
+
+    private DealContractor dealContractor(UUID id, UUID dealId) {
+        return DealContractor.builder()
+                .id(id)
+                .deal(Deal.builder().id(dealId).build())
+                .build();
     }
 }
\ No newline at end of file
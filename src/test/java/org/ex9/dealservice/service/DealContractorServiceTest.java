@@ -1,23 +1,32 @@
 package org.ex9.dealservice.service;
 
 import org.ex9.dealservice.dto.DealContractorSaveRequestDto;
+import org.ex9.dealservice.dto.rabbit.ContractorDto;
 import org.ex9.dealservice.exception.DealContractorNotFondException;
 import org.ex9.dealservice.mapper.DealContractorMapper;
+import org.ex9.dealservice.model.Contractor;
 import org.ex9.dealservice.model.Deal;
 import org.ex9.dealservice.model.DealContractor;
+import org.ex9.dealservice.repository.ContractorRepository;
 import org.ex9.dealservice.repository.DealContractorRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -33,6 +42,12 @@ class DealContractorServiceTest {
     @Mock
     private DealContractorMapper dealContractorMapper;
 
+    @Mock
+    private ContractorRepository contractorRepository;
+
+    @Mock
+    private ETagService eTagService;
+
     @InjectMocks
     private DealContractorService service;
 
@@ -49,19 +64,26 @@ class DealContractorServiceTest {
                 .build();
         DealContractor contractor = DealContractor.builder()
                 .id(id)
-                .contractorId("CONTR1")
+                .contractor(Contractor.builder().id("CONTR1").build())
                 .deal(Deal.builder().id(dealId).build())
                 .build();
 
-        when(dealContractorMapper.toNewDealContractor(request)).thenReturn(contractor);
+        when(contractorRepository.findById("CONTR1")).thenReturn(Optional.empty());
+        when(contractorRepository.save(any(Contractor.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(dealContractorMapper.toNewDealContractor(eq(request), any(Contractor.class))).thenReturn(contractor);
         when(dealContractorRepository.save(contractor)).thenReturn(contractor);
 
         UUID result = service.saveDealContractor(request);
 
         assertEquals(id, result);
-        verify(dealContractorMapper, times(1)).toNewDealContractor(request);
+        ArgumentCaptor<Contractor> saved = ArgumentCaptor.forClass(Contractor.class);
+        verify(contractorRepository).save(saved.capture());
+        assertEquals("John Doe", saved.getValue().getName());
+        assertNull(saved.getValue().getModifyDate());
+        verify(dealContractorMapper, times(1)).toNewDealContractor(eq(request), any(Contractor.class));
         verify(dealContractorRepository, times(1)).save(contractor);
         verify(dealContractorRepository, never()).findByIdAndIsActiveTrue(any());
+        verify(eTagService, times(1)).touchDeals(Set.of(dealId));
     }
 
     @Test
@@ -86,17 +108,76 @@ class DealContractorServiceTest {
                 .isActive(true)
                 .build();
 
+        Contractor contractor = Contractor.builder().id("CONTR1").name("John Doe").inn("1234567890").build();
+
         when(dealContractorRepository.findByIdAndIsActiveTrue(contractorId)).thenReturn(Optional.of(existingContractor));
-        when(dealContractorMapper.toUpdateDealContractor(request, existingContractor)).thenReturn(updatedContractor);
+        when(contractorRepository.findById("CONTR1")).thenReturn(Optional.of(contractor));
+        when(dealContractorMapper.toUpdateDealContractor(request, existingContractor, contractor)).thenReturn(updatedContractor);
         when(dealContractorRepository.save(updatedContractor)).thenReturn(updatedContractor);
 
         UUID result = service.saveDealContractor(request);
 
         assertEquals(contractorId, result);
         verify(dealContractorRepository, times(1)).findByIdAndIsActiveTrue(contractorId);
-        verify(dealContractorMapper, times(1)).toUpdateDealContractor(request, existingContractor);
+        verify(dealContractorMapper, times(1)).toUpdateDealContractor(request, existingContractor, contractor);
         verify(dealContractorRepository, times(1)).save(updatedContractor);
-        verify(dealContractorMapper, never()).toNewDealContractor(any());
+        verify(dealContractorMapper, never()).toNewDealContractor(any(), any());
+        verify(contractorRepository, never()).save(any());
+        verify(dealContractorRepository, never()).findDealIdsByContractorId(any());
+    }
+
+    @Test
+    void testSaveDealContractor_contractorNameChanged_keepsSourceVersionAndTouchesAllDeals() {
+        LocalDateTime sourceModifyDate = LocalDateTime.now().minusDays(1);
+        UUID dealContractorId = UUID.randomUUID();
+        UUID dealId = UUID.randomUUID();
+        UUID otherDealId = UUID.randomUUID();
+        var request = DealContractorSaveRequestDto.builder()
+                .id(dealContractorId.toString())
+                .dealId(dealId)
+                .contractorId("CONTR1")
+                .name("New name")
+                .inn("1234567890")
+                .build();
+        DealContractor dealContractor = DealContractor.builder()
+                .id(dealContractorId)
+                .deal(Deal.builder().id(dealId).build())
+                .build();
+        Contractor contractor = Contractor.builder()
+                .id("CONTR1")
+                .name("Old name")
+                .inn("1234567890")
+                .modifyDate(sourceModifyDate)
+                .build();
+
+        when(dealContractorRepository.findByIdAndIsActiveTrue(dealContractorId)).thenReturn(Optional.of(dealContractor));
+        when(contractorRepository.findById("CONTR1")).thenReturn(Optional.of(contractor));
+        when(contractorRepository.save(contractor)).thenReturn(contractor);
+        when(dealContractorRepository.findDealIdsByContractorId("CONTR1")).thenReturn(List.of(dealId, otherDealId));
+        when(dealContractorMapper.toUpdateDealContractor(request, dealContractor, contractor)).thenReturn(dealContractor);
+        when(dealContractorRepository.save(dealContractor)).thenReturn(dealContractor);
+
+        service.saveDealContractor(request, "user");
+
+        assertEquals("New name", contractor.getName());
+        assertNull(contractor.getModifyUserId());
+        assertEquals(sourceModifyDate, contractor.getModifyDate());
+        verify(eTagService).touchDeals(Set.of(dealId, otherDealId));
+    }
+
+    @Test
+    void testSaveDealContractor_newContractorWithoutName_throwsException() {
+        var request = DealContractorSaveRequestDto.builder()
+                .dealId(UUID.randomUUID())
+                .contractorId("CONTR1")
+                .build();
+
+        when(contractorRepository.findById("CONTR1")).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> service.saveDealContractor(request));
+        verify(contractorRepository, never()).save(any());
+        verify(dealContractorRepository, never()).save(any());
+        verify(eTagService, never()).touchDeals(any());
     }
 
     @Test
@@ -148,4 +229,60 @@ class DealContractorServiceTest {
         verify(dealContractorRepository, never()).logicalDeleteById(any());
     }
 
+    @Test
+    void testUpdateDealContractorFomRabbit_success_evictsDeals() {
+        UUID dealId1 = UUID.randomUUID();
+        UUID dealId2 = UUID.randomUUID();
+        var contractorDto = ContractorDto.builder()
+                .id("CONTR1")
+                .name("New name")
+                .inn("1234567890")
+                .modifyUserId("user")
+                .modifyDateTime(LocalDateTime.now())
+                .build();
+
+        when(contractorRepository.updateIfOlder("CONTR1", "New name", "1234567890",
+                contractorDto.getModifyDateTime(), "user")).thenReturn(1);
+        when(dealContractorRepository.findDealIdsByContractorId("CONTR1")).thenReturn(List.of(dealId1, dealId2));
+
+        service.updateDealContractorFomRabbit(contractorDto);
+
+        verify(eTagService, times(1)).touchDeals(List.of(dealId1, dealId2));
+        verify(contractorRepository, never()).existsById(any());
+        verify(dealContractorRepository, never()).save(any());
+    }
+
+    @Test
+    void testUpdateDealContractorFomRabbit_alreadyUpToDate() {
+        var contractorDto = ContractorDto.builder()
+                .id("CONTR1")
+                .modifyDateTime(LocalDateTime.now())
+                .build();
+
+        when(contractorRepository.updateIfOlder(any(), any(), any(), any(), any())).thenReturn(0);
+        when(contractorRepository.existsById("CONTR1")).thenReturn(true);
+
+        service.updateDealContractorFomRabbit(contractorDto);
+
+        verify(eTagService, never()).touchDeals(any());
+    }
+
+    @Test
+    void testUpdateDealContractorFomRabbit_notFound() {
+        var contractorDto = ContractorDto.builder()
+                .id("CONTR1")
+                .modifyDateTime(LocalDateTime.now())
+                .build();
+
+        when(contractorRepository.updateIfOlder(any(), any(), any(), any(), any())).thenReturn(0);
+        when(contractorRepository.existsById("CONTR1")).thenReturn(false);
+
+        DealContractorNotFondException exception = assertThrows(
+                DealContractorNotFondException.class,
+                () -> service.updateDealContractorFomRabbit(contractorDto)
+        );
+        assertEquals("Contractor with id 'CONTR1' not found", exception.getMessage());
+        verify(eTagService, never()).touchDeals(any());
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+package org.ex9.dealservice.service;
+
+import org.ex9.dealservice.config.RedisConfig;
+import org.ex9.dealservice.dto.DealSaveRequestDto;
+import org.ex9.dealservice.export.DealNdjsonStreamer;
+import org.ex9.dealservice.export.ParallelDealExporter;
+import org.ex9.dealservice.mapper.DealMapper;
+import org.ex9.dealservice.model.Deal;
+import org.ex9.dealservice.repository.DealRepository;
+import org.ex9.dealservice.repository.DealStatusRepository;
+import org.ex9.dealservice.repository.DealSumRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@SpringJUnitConfig(DealServiceCacheTest.CacheConfig.class)
+class DealServiceCacheTest {
+
+    @MockitoBean
+    private DealRepository dealRepository;
+
+    @MockitoBean
+    private DealStatusRepository dealStatusRepository;
+
+    @MockitoBean
+    private DealMapper dealMapper;
+
+    @MockitoBean
+    private DealSumRepository dealSumRepository;
+
+    @MockitoBean
+    private ParallelDealExporter parallelDealExporter;
+
+    @MockitoBean
+    private DealBatchCache dealBatchCache;
+
+    @MockitoBean
+    private DealNdjsonStreamer dealNdjsonStreamer;
+
+    @MockitoBean
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private DealTotalEstimator dealTotalEstimator;
+
+    @Autowired
+    private DealService dealService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void testDealSave_uiCreateWithoutId_savesWithoutEviction() {
+        UUID id = UUID.randomUUID();
+        var request = DealSaveRequestDto.builder().description("new").build();
+        Deal deal = Deal.builder().id(id).build();
+
+        when(dealMapper.toNewDeal(request)).thenReturn(deal);
+        when(dealRepository.save(any(Deal.class))).thenReturn(deal);
+
+        assertEquals(id, dealService.dealSave(request, "user"));
+        assertEquals("user", deal.getCreateUserId());
+    }
+
+    @Test
+    void testDealSave_apiCreateWithoutId_savesWithoutEviction() {
+        UUID id = UUID.randomUUID();
+        var request = DealSaveRequestDto.builder().description("new").build();
+        Deal deal = Deal.builder().id(id).build();
+
+        when(dealMapper.toNewDeal(request)).thenReturn(deal);
+        when(dealRepository.save(any(Deal.class))).thenReturn(deal);
+
+        assertEquals(id, dealService.dealSave(request));
+    }
+
+    @Test
+    void testDealSave_uiUpdate_evictsCachedDeal() {
+        UUID id = UUID.randomUUID();
+        var request = DealSaveRequestDto.builder().id(id).description("changed").build();
+        Deal deal = Deal.builder().id(id).isActive(true).build();
+        cacheManager.getCache(RedisConfig.DEALS).put(id, "cached");
+
+        when(dealRepository.findLockedById(id)).thenReturn(Optional.of(deal));
+        when(dealMapper.toUpdateDeal(any(), any())).thenReturn(deal);
+        when(dealRepository.save(any(Deal.class))).thenReturn(deal);
+
+        dealService.dealSave(request, "user");
+
+        assertNull(cacheManager.getCache(RedisConfig.DEALS).get(id));
+    }
+
+    @Configuration
+    @EnableCaching
+    @Import(DealService.class)
+    static class CacheConfig {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(RedisConfig.DEALS);
+        }
+
+    }
+
+}
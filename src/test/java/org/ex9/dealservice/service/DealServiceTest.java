@@ -3,27 +3,40 @@ package org.ex9.dealservice.service;
 import org.ex9.dealservice.dto.*;
 import org.ex9.dealservice.exception.DealNotFondException;
 import org.ex9.dealservice.exception.DealStatusNotFondException;
+import org.ex9.dealservice.exception.DealVersionMismatchException;
+import org.ex9.dealservice.export.DealBatch;
+import org.ex9.dealservice.export.DealNdjsonStreamer;
+import org.ex9.dealservice.export.ExportFormat;
+import org.ex9.dealservice.export.ParallelDealExporter;
 import org.ex9.dealservice.mapper.DealMapper;
 import org.ex9.dealservice.model.Deal;
 import org.ex9.dealservice.model.DealStatus;
 import org.ex9.dealservice.model.DealSum;
 import org.ex9.dealservice.repository.DealRepository;
+import org.ex9.dealservice.repository.DealRow;
 import org.ex9.dealservice.repository.DealStatusRepository;
 import org.ex9.dealservice.repository.DealSumRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.io.ByteArrayOutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -43,6 +56,21 @@ class DealServiceTest {
     @Mock
     private DealSumRepository dealSumRepository;
 
+    @Mock
+    private ParallelDealExporter parallelDealExporter;
+
+    @Mock
+    private DealBatchCache dealBatchCache;
+
+    @Mock
+    private DealNdjsonStreamer dealNdjsonStreamer;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private DealTotalEstimator dealTotalEstimator;
+
     @InjectMocks
     private DealService service;
 
@@ -77,7 +105,7 @@ class DealServiceTest {
         verify(dealRepository, times(1)).save(deal);
         verify(dealMapper, times(1)).toDealSum(sumDto, deal);
         verify(dealSumRepository, times(1)).save(dealSum);
-        verify(dealRepository, never()).findById(any());
+        verify(dealRepository, never()).findLockedById(any());
     }
 
     @Test
@@ -96,7 +124,7 @@ class DealServiceTest {
         updatedDeal.setId(dealId);
         DealSum dealSum = new DealSum();
 
-        when(dealRepository.findById(dealId)).thenReturn(Optional.of(existingDeal));
+        when(dealRepository.findLockedById(dealId)).thenReturn(Optional.of(existingDeal));
         when(dealMapper.toUpdateDeal(request, existingDeal)).thenReturn(updatedDeal);
         when(dealRepository.save(updatedDeal)).thenReturn(updatedDeal);
         when(dealMapper.toDealSum(sumDto, updatedDeal)).thenReturn(dealSum);
@@ -105,7 +133,7 @@ class DealServiceTest {
         UUID result = service.dealSave(request);
 
         assertEquals(dealId, result);
-        verify(dealRepository, times(1)).findById(dealId);
+        verify(dealRepository, times(1)).findLockedById(dealId);
         verify(dealMapper, times(1)).toUpdateDeal(request, existingDeal);
         verify(dealRepository, times(1)).save(updatedDeal);
         verify(dealMapper, times(1)).toDealSum(sumDto, updatedDeal);
@@ -118,7 +146,7 @@ class DealServiceTest {
         DealSaveRequestDto request = new DealSaveRequestDto();
         request.setId(dealId);
 
-        when(dealRepository.findById(dealId)).thenReturn(Optional.empty());
+        when(dealRepository.findLockedById(dealId)).thenReturn(Optional.empty());
 
         DealNotFondException exception = assertThrows(
                 DealNotFondException.class,
@@ -128,6 +156,46 @@ class DealServiceTest {
         verify(dealRepository, never()).save(any());
     }
 
+    @Test
+    void testDealSave_ifMatch_versionMatches_success() {
+        UUID dealId = UUID.randomUUID();
+        DealSaveRequestDto request = new DealSaveRequestDto();
+        request.setId(dealId);
+
+        Deal existingDeal = new Deal();
+        existingDeal.setId(dealId);
+        existingDeal.setVersion(3L);
+
+        when(dealRepository.findLockedById(dealId)).thenReturn(Optional.of(existingDeal));
+        when(dealMapper.toUpdateDeal(request, existingDeal)).thenReturn(existingDeal);
+        when(dealRepository.save(existingDeal)).thenReturn(existingDeal);
+
+        UUID result = service.dealSave(request, 3L);
+
+        assertEquals(dealId, result);
+        verify(dealRepository, times(1)).save(existingDeal);
+    }
+
+    @Test
+    void testDealSave_ifMatch_versionChanged_throwsMismatch() {
+        UUID dealId = UUID.randomUUID();
+        DealSaveRequestDto request = new DealSaveRequestDto();
+        request.setId(dealId);
+
+        Deal existingDeal = new Deal();
+        existingDeal.setId(dealId);
+        existingDeal.setVersion(4L);
+
+        when(dealRepository.findLockedById(dealId)).thenReturn(Optional.of(existingDeal));
+
+        DealVersionMismatchException exception = assertThrows(
+                DealVersionMismatchException.class,
+                () -> service.dealSave(request, 3L)
+        );
+        assertEquals("Deal with id '" + dealId + "' has been modified", exception.getMessage());
+        verify(dealRepository, never()).save(any());
+    }
+
     @Test
     void testChangeStatus_success() {
         DealChangeStatusDto request = new DealChangeStatusDto();
@@ -225,19 +293,20 @@ class DealServiceTest {
                 .sortDirection("ASC")
                 .build();
 
-        Deal deal = new Deal();
+        DealRow row = dealRow(UUID.randomUUID(), "ACTIVE");
         DealResponseDto responseDto = new DealResponseDto();
-        Page<Deal> dealPage = new PageImpl<>(Collections.singletonList(deal));
+        Page<DealRow> rowPage = new PageImpl<>(Collections.singletonList(row));
 
-        when(dealRepository.findAll(any(Specification.class), any(PageRequest.class))).thenReturn(dealPage);
-        when(dealMapper.toDealResponseDto(deal)).thenReturn(responseDto);
+        when(dealRepository.findRows(any(DealSearchRequestDto.class), any(PageRequest.class), eq(DealView.FULL), eq(DealTotalMode.EXACT))).thenReturn(rowPage);
+        when(dealMapper.toDealResponseDtosFromRows(List.of(row))).thenReturn(List.of(responseDto));
 
-        Page<DealResponseDto> result = service.searchDeals(request);
+        Slice<DealResponseDto> result = service.searchDeals(request);
 
         assertEquals(1, result.getContent().size());
         assertEquals(responseDto, result.getContent().get(0));
-        verify(dealRepository, times(1)).findAll(any(Specification.class), any(PageRequest.class));
-        verify(dealMapper, times(1)).toDealResponseDto(deal);
+        verify(dealRepository, times(1)).findRows(any(DealSearchRequestDto.class), any(PageRequest.class), eq(DealView.FULL), eq(DealTotalMode.EXACT));
+        verify(dealRepository, never()).findAll(any(Specification.class), any(PageRequest.class));
+        verify(dealMapper, never()).toDealResponseDto(any());
     }
 
     @Test
@@ -251,30 +320,24 @@ class DealServiceTest {
                 .sortDirection("DESC")
                 .build();
 
-        Deal deal = new Deal();
+        DealRow row = dealRow(UUID.randomUUID(), "ACTIVE");
         DealResponseDto responseDto = new DealResponseDto();
         responseDto.setDescription("Кредитная сделка");
         responseDto.setStatus(new DealStatusDto("ACTIVE", "Утвержденная"));
-        Page<Deal> dealPage = new PageImpl<>(Collections.singletonList(deal),
-                PageRequest.of(
-                        1, 5,
-                        Sort.by(Sort.Direction.DESC, "agreementDate")), 1);
-
-        when(dealRepository.findAll(
-                any(Specification.class),
-                eq(PageRequest.of(1, 5, Sort.by(Sort.Direction.DESC, "agreementDate")))))
-                .thenReturn(dealPage);
-        when(dealMapper.toDealResponseDto(deal)).thenReturn(responseDto);
+        PageRequest pageRequest = PageRequest.of(1, 5, Sort.by(Sort.Direction.DESC, "agreementDate"));
+        Page<DealRow> rowPage = new PageImpl<>(Collections.singletonList(row), pageRequest, 6);
+
+        when(dealRepository.findRows(any(DealSearchRequestDto.class), eq(pageRequest), eq(DealView.FULL), eq(DealTotalMode.EXACT))).thenReturn(rowPage);
+        when(dealMapper.toDealResponseDtosFromRows(List.of(row))).thenReturn(List.of(responseDto));
 
-        Page<DealResponseDto> result = service.searchDeals(request);
+        Slice<DealResponseDto> result = service.searchDeals(request);
 
         assertEquals(1, result.getContent().size());
         assertEquals("Кредитная сделка", result.getContent().get(0).getDescription());
         assertEquals("ACTIVE", result.getContent().get(0).getStatus().getId());
         assertEquals(1, result.getNumber());
         assertEquals(5, result.getSize());
-        verify(dealRepository, times(1)).findAll(any(Specification.class), any(PageRequest.class));
-        verify(dealMapper, times(1)).toDealResponseDto(deal);
+        assertEquals(6, assertInstanceOf(Page.class, result).getTotalElements());
     }
 
     @Test
@@ -283,25 +346,240 @@ class DealServiceTest {
         request.setPage(0);
         request.setSize(20);
 
-        Deal deal1 = new Deal();
-        Deal deal2 = new Deal();
+        DealRow row1 = dealRow(UUID.randomUUID(), "DRAFT");
+        DealRow row2 = dealRow(UUID.randomUUID(), "DRAFT");
         DealResponseDto responseDto1 = new DealResponseDto();
         DealResponseDto responseDto2 = new DealResponseDto();
-        Page<Deal> dealPage = new PageImpl<>(Arrays.asList(deal1, deal2), PageRequest.of(0, 20, Sort.unsorted()), 2);
+        Page<DealRow> rowPage = new PageImpl<>(Arrays.asList(row1, row2), PageRequest.of(0, 20, Sort.unsorted()), 2);
 
-        when(dealRepository.findAll(any(Specification.class), eq(PageRequest.of(0, 20, Sort.unsorted())))).thenReturn(dealPage);
-        when(dealMapper.toDealResponseDto(deal1)).thenReturn(responseDto1);
-        when(dealMapper.toDealResponseDto(deal2)).thenReturn(responseDto2);
+        when(dealRepository.findRows(any(DealSearchRequestDto.class), eq(PageRequest.of(0, 20, Sort.unsorted())), eq(DealView.FULL), eq(DealTotalMode.EXACT)))
+                .thenReturn(rowPage);
+        when(dealMapper.toDealResponseDtosFromRows(List.of(row1, row2))).thenReturn(List.of(responseDto1, responseDto2));
 
-        Page<DealResponseDto> result = service.searchDeals(request);
+        Slice<DealResponseDto> result = service.searchDeals(request);
 
-        assertEquals(2, result.getContent().size());
+        assertEquals(List.of(responseDto1, responseDto2), result.getContent());
         assertEquals(0, result.getNumber());
         assertEquals(20, result.getSize());
-        assertEquals(2, result.getTotalElements());
-        verify(dealRepository, times(1)).findAll(any(Specification.class), any(PageRequest.class));
-        verify(dealMapper, times(1)).toDealResponseDto(deal1);
-        verify(dealMapper, times(1)).toDealResponseDto(deal2);
+        assertEquals(2, assertInstanceOf(Page.class, result).getTotalElements());
+    }
+
+    @Test
+    void testSearchDeals_summaryView_doesNotLoadRelations() {
+        var request = DealSearchRequestDto.builder()
+                .page(0)
+                .size(10)
+                .view(DealView.SUMMARY)
+                .build();
+
+        DealRow row = dealRow(UUID.randomUUID(), "DRAFT");
+        DealResponseDto summary = DealResponseDto.builder()
+                .id(row.id())
+                .status(new DealStatusDto("DRAFT", "Черновик"))
+                .build();
+        when(dealRepository.findRows(any(DealSearchRequestDto.class), eq(PageRequest.of(0, 10, Sort.unsorted())), eq(DealView.SUMMARY), eq(DealTotalMode.EXACT)))
+                .thenReturn(new PageImpl<>(List.of(row)));
+        when(dealMapper.toSummaryDto(row)).thenReturn(summary);
+
+        Slice<DealResponseDto> result = service.searchDeals(request);
+
+        assertEquals(List.of(summary), result.getContent());
+        verify(dealMapper, never()).toDealResponseDtosFromRows(any());
+        verify(dealRepository, never()).findAll(any(Specification.class), any(PageRequest.class));
+    }
+
+    @Test
+    void testSearchDeals_totalModeNone_returnsSliceWithoutTotal() {
+        var request = DealSearchRequestDto.builder()
+                .page(0)
+                .size(1)
+                .totalMode(DealTotalMode.NONE)
+                .build();
+
+        DealRow row = dealRow(UUID.randomUUID(), "DRAFT");
+        DealResponseDto responseDto = new DealResponseDto();
+        PageRequest pageRequest = PageRequest.of(0, 1, Sort.unsorted());
+        when(dealRepository.findRows(any(DealSearchRequestDto.class), eq(pageRequest), eq(DealView.FULL), eq(DealTotalMode.NONE)))
+                .thenReturn(new SliceImpl<>(List.of(row), pageRequest, true));
+        when(dealMapper.toDealResponseDtosFromRows(List.of(row))).thenReturn(List.of(responseDto));
+
+        Slice<DealResponseDto> result = service.searchDeals(request);
+
+        assertFalse(result instanceof Page);
+        assertEquals(List.of(responseDto), result.getContent());
+        assertTrue(result.hasNext());
+    }
+
+    @Test
+    void testSearchDeals_totalModeEstimated_capsTotal() {
+        var request = DealSearchRequestDto.builder()
+                .page(0)
+                .size(1)
+                .view(DealView.SUMMARY)
+                .totalMode(DealTotalMode.ESTIMATED)
+                .build();
+
+        DealRow row = dealRow(UUID.randomUUID(), "DRAFT");
+        PageRequest pageRequest = PageRequest.of(0, 1, Sort.unsorted());
+        when(dealRepository.findRows(any(DealSearchRequestDto.class), eq(pageRequest), eq(DealView.SUMMARY), eq(DealTotalMode.NONE)))
+                .thenReturn(new SliceImpl<>(List.of(row), pageRequest, true));
+        when(dealMapper.toSummaryDto(row)).thenReturn(new DealResponseDto());
+        when(dealTotalEstimator.estimate(request)).thenReturn(10001L);
+        when(dealTotalEstimator.getCap()).thenReturn(10000);
+
+        var result = assertInstanceOf(DealPage.class, service.searchDeals(request));
+
+        assertEquals(10000, result.getTotalElements());
+        assertTrue(result.isTotalCapped());
+    }
+
+    @Test
+    void testSearchDeals_totalModeEstimated_lastPage_doesNotCount() {
+        var request = DealSearchRequestDto.builder()
+                .page(2)
+                .size(10)
+                .view(DealView.SUMMARY)
+                .totalMode(DealTotalMode.ESTIMATED)
+                .build();
+
+        DealRow row = dealRow(UUID.randomUUID(), "DRAFT");
+        PageRequest pageRequest = PageRequest.of(2, 10, Sort.unsorted());
+        when(dealRepository.findRows(any(DealSearchRequestDto.class), eq(pageRequest), eq(DealView.SUMMARY), eq(DealTotalMode.NONE)))
+                .thenReturn(new SliceImpl<>(List.of(row), pageRequest, false));
+        when(dealMapper.toSummaryDto(row)).thenReturn(new DealResponseDto());
+
+        var result = assertInstanceOf(DealPage.class, service.searchDeals(request));
+
+        assertEquals(21, result.getTotalElements());
+        assertFalse(result.isTotalCapped());
+        verifyNoInteractions(dealTotalEstimator);
+    }
+
+    @Test
+    void testExportDeals_writesPageAfterTransactionCompletes() {
+        var request = DealSearchRequestDto.builder()
+                .page(0)
+                .size(10)
+                .build();
+        Deal deal = new Deal();
+        Page<Deal> dealPage = new PageImpl<>(List.of(deal));
+        var batch = new DealBatch(List.of(deal), Map.of(), Map.of(), Map.of());
+        var out = new ByteArrayOutputStream();
+
+        when(dealRepository.findAll(any(Specification.class), eq(PageRequest.of(0, 10, Sort.unsorted())))).thenReturn(dealPage);
+        when(dealMapper.loadBatch(List.of(deal))).thenReturn(batch);
+        List<DealBatch> written = new ArrayList<>();
+        doAnswer(invocation -> {
+            invocation.<Iterator<DealBatch>>getArgument(0).forEachRemaining(written::add);
+            return null;
+        }).when(dealMapper).exportBatches(any(), eq(ExportFormat.XLSX), eq(out), any());
+
+        service.exportDeals(request, ExportFormat.XLSX, out, exported -> { });
+
+        InOrder inOrder = inOrder(transactionManager, dealMapper);
+        inOrder.verify(transactionManager).getTransaction(argThat(definition -> definition.isReadOnly()));
+        inOrder.verify(dealMapper).loadBatch(List.of(deal));
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(dealMapper).exportBatches(any(), eq(ExportFormat.XLSX), eq(out), any());
+        assertEquals(List.of(batch), written);
+        verify(dealMapper, never()).export(any(), any(), any(), any());
+    }
+
+    @Test
+    void testExportDeals_exportAll_streamsAllMatches() {
+        var request = DealSearchRequestDto.builder()
+                .page(0)
+                .size(10)
+                .sortBy("agreementDate")
+                .sortDirection("DESC")
+                .exportAll(true)
+                .build();
+        var out = new ByteArrayOutputStream();
+
+        when(parallelDealExporter.tryExport(any(), any(), any(), any(), any())).thenReturn(false);
+
+        service.exportDeals(request, ExportFormat.XLSX, out, exported -> { });
+
+        verify(dealRepository, times(1)).streamAll(any(), eq(Sort.by(Sort.Direction.DESC, "agreementDate")), any());
+        verify(dealRepository, never()).findAll(any(Specification.class), any(PageRequest.class));
+    }
+
+    @Test
+    void testExportDeals_exportAllParallel_usesParallelExporter() {
+        var request = DealSearchRequestDto.builder()
+                .page(0)
+                .size(10)
+                .exportAll(true)
+                .build();
+        var out = new ByteArrayOutputStream();
+
+        when(parallelDealExporter.tryExport(any(), any(), any(), any(), any())).thenReturn(true);
+
+        service.exportDeals(request, ExportFormat.CSV, out, exported -> { });
+
+        verify(parallelDealExporter, times(1)).tryExport(any(), eq(Sort.unsorted()), eq(ExportFormat.CSV), eq(out), any());
+        verify(dealRepository, never()).streamAll(any(), any(), any());
+    }
+
+    @Test
+    void testGetDealsByIds_mixesCacheHitsLoadedAndMissing() {
+        UUID cachedId = UUID.randomUUID();
+        UUID loadedId = UUID.randomUUID();
+        UUID missingId = UUID.randomUUID();
+        DealResponseDto cached = DealResponseDto.builder().id(cachedId).build();
+        DealResponseDto loaded = DealResponseDto.builder().id(loadedId).build();
+        Deal loadedDeal = new Deal();
+        loadedDeal.setId(loadedId);
+
+        when(dealBatchCache.getAll(List.of(loadedId, cachedId, missingId))).thenReturn(Map.of(cachedId, cached));
+        when(dealRepository.findAllByIdInAndIsActiveTrue(List.of(loadedId, missingId))).thenReturn(List.of(loadedDeal));
+        when(dealMapper.toDealResponseDtos(List.of(loadedDeal))).thenReturn(List.of(loaded));
+
+        List<DealBatchItemDto> result = service.getDealsByIds(List.of(loadedId, cachedId, missingId, cachedId));
+
+        assertEquals(List.of(DealBatchItemDto.found(loaded), DealBatchItemDto.found(cached),
+                DealBatchItemDto.notFound(missingId), DealBatchItemDto.found(cached)), result);
+        verify(dealBatchCache, times(1)).putAll(Map.of(loadedId, loaded));
+    }
+
+    @Test
+    void testGetDealsByIds_allCached_doesNotQueryDatabase() {
+        UUID dealId = UUID.randomUUID();
+        DealResponseDto cached = DealResponseDto.builder().id(dealId).build();
+
+        when(dealBatchCache.getAll(List.of(dealId))).thenReturn(Map.of(dealId, cached));
+
+        List<DealBatchItemDto> result = service.getDealsByIds(List.of(dealId));
+
+        assertEquals(List.of(DealBatchItemDto.found(cached)), result);
+        verifyNoInteractions(dealRepository);
+        verify(dealBatchCache, never()).putAll(any());
+    }
+
+    @Test
+    void testStreamDeals_writesDealsFromCursor() {
+        var request = DealSearchRequestDto.builder()
+                .sortBy("agreementDate")
+                .build();
+        var out = new ByteArrayOutputStream();
+        Deal deal = new Deal();
+        deal.setId(UUID.randomUUID());
+
+        doAnswer(invocation -> {
+            Consumer<Stream<Deal>> consumer = invocation.getArgument(2);
+            consumer.accept(Stream.of(deal));
+            return null;
+        }).when(dealRepository).streamAll(any(), eq(Sort.by(Sort.Direction.ASC, "agreementDate")), any());
+        when(dealNdjsonStreamer.write(any(), eq(out))).thenReturn(1L);
+
+        long written = service.streamDeals(request, out);
+
+        assertEquals(1L, written);
+        verify(dealRepository, never()).findAll(any(Specification.class), any(PageRequest.class));
+    }
+
+    private static DealRow dealRow(UUID id, String statusId) {
+        return new DealRow(id, null, "AG-1", LocalDate.now(), null, null, null, "CREDIT", "Кредитная сделка", statusId, statusId);
     }
 
-}
\ No newline at end of file
+}
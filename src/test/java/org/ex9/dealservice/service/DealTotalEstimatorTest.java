@@ -0,0 +1,127 @@
+package org.ex9.dealservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ex9.dealservice.config.RedisConfig;
+import org.ex9.dealservice.dto.DealSearchRequestDto;
+import org.ex9.dealservice.dto.DealSumDto;
+import org.ex9.dealservice.dto.DealView;
+import org.ex9.dealservice.repository.DealRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.core.serializer.support.SerializationDelegate;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DealTotalEstimatorTest {
+
+    @Mock
+    private DealRepository dealRepository;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache cache;
+
+    private DealTotalEstimator estimator;
+
+    @BeforeEach
+    void setUp() {
+        estimator = new DealTotalEstimator(dealRepository, cacheManager, 10000);
+    }
+
+    @Test
+    void testEstimate_notCached_countsUpToCapAndCaches() {
+        var request = DealSearchRequestDto.builder().typeIds(List.of("CREDIT")).build();
+        String key = DealTotalEstimator.filterKey(request);
+        when(cacheManager.getCache(RedisConfig.DEAL_SEARCH_TOTALS)).thenReturn(cache);
+        when(dealRepository.countAtMost(request, 10001)).thenReturn(10001L);
+
+        assertEquals(10001L, estimator.estimate(request));
+        verify(cache).put(key, 10001L);
+    }
+
+    @Test
+    void testEstimate_cached_doesNotQueryDatabase() {
+        var request = DealSearchRequestDto.builder().agreementNumber("AG").build();
+        when(cacheManager.getCache(RedisConfig.DEAL_SEARCH_TOTALS)).thenReturn(cache);
+        when(cache.get(anyString(), eq(Number.class))).thenReturn(42);
+
+        assertEquals(42L, estimator.estimate(request));
+        verifyNoInteractions(dealRepository);
+    }
+
+    @Test
+    void testEstimate_cachedThroughRedisSerializer_readsBackLong() {
+        var request = DealSearchRequestDto.builder().agreementNumber("AG").build();
+        var serializer = RedisConfig.cacheSerializer(new ObjectMapper());
+        var delegate = new SerializationDelegate(
+                (value, out) -> out.write(serializer.serialize(value)),
+                in -> serializer.deserialize(in.readAllBytes()));
+        Cache redisLikeCache = new ConcurrentMapCache(RedisConfig.DEAL_SEARCH_TOTALS, new ConcurrentHashMap<>(), true, delegate) { };
+        when(cacheManager.getCache(RedisConfig.DEAL_SEARCH_TOTALS)).thenReturn(redisLikeCache);
+        when(dealRepository.countAtMost(request, 10001)).thenReturn(42L);
+
+        assertEquals(42L, estimator.estimate(request));
+        assertInstanceOf(Integer.class, redisLikeCache.get(DealTotalEstimator.filterKey(request)).get());
+        assertEquals(42L, estimator.estimate(request));
+        verify(dealRepository, times(1)).countAtMost(request, 10001);
+    }
+
+    @Test
+    void testFilterKey_ignoresPagingAndListOrder() {
+        var first = DealSearchRequestDto.builder()
+                .statusIds(List.of("ACTIVE", "DRAFT"))
+                .page(0)
+                .size(10)
+                .sortBy("agreementDate")
+                .build();
+        var second = DealSearchRequestDto.builder()
+                .statusIds(List.of("DRAFT", "ACTIVE", "DRAFT"))
+                .page(3)
+                .size(50)
+                .view(DealView.SUMMARY)
+                .build();
+        var other = DealSearchRequestDto.builder()
+                .statusIds(List.of("ACTIVE"))
+                .build();
+
+        assertEquals(DealTotalEstimator.filterKey(first), DealTotalEstimator.filterKey(second));
+        assertNotEquals(DealTotalEstimator.filterKey(first), DealTotalEstimator.filterKey(other));
+    }
+
+    @Test
+    void testFilterKey_equalSumsInDifferentNotation_sameKey() {
+        var first = DealSearchRequestDto.builder()
+                .sum(new DealSumDto("0100.50", "USD"))
+                .build();
+        var second = DealSearchRequestDto.builder()
+                .sum(new DealSumDto("100.5", "USD"))
+                .build();
+        var other = DealSearchRequestDto.builder()
+                .sum(new DealSumDto("100.05", "USD"))
+                .build();
+
+        assertEquals(DealTotalEstimator.filterKey(first), DealTotalEstimator.filterKey(second));
+        assertNotEquals(DealTotalEstimator.filterKey(first), DealTotalEstimator.filterKey(other));
+    }
+
+}
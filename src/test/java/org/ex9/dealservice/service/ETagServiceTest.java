@@ -0,0 +1,80 @@
+package org.ex9.dealservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ex9.dealservice.config.RedisConfig;
+import org.ex9.dealservice.dto.DealResponseDto;
+import org.ex9.dealservice.dto.DealTypeDto;
+import org.ex9.dealservice.exception.DealVersionMismatchException;
+import org.ex9.dealservice.repository.DealRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ETagServiceTest {
+
+    @Mock
+    private DealRepository dealRepository;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache cache;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private ETagService service;
+
+    @Test
+    void testToDealETag_fromCachedDealVersion() {
+        assertEquals("\"5\"", ETagService.toDealETag(DealResponseDto.builder().version(5L).build()));
+        assertNull(ETagService.toDealETag(DealResponseDto.builder().build()));
+    }
+
+    @Test
+    void testTouchDeals_incrementsVersionsAndEvictsCaches() {
+        UUID dealId = UUID.randomUUID();
+        when(cacheManager.getCache(RedisConfig.DEALS)).thenReturn(cache);
+
+        service.touchDeals(List.of(dealId));
+
+        verify(dealRepository).incrementVersion(List.of(dealId));
+        verify(cache).evict(dealId);
+    }
+
+    @Test
+    void testToReferenceETag_dependsOnlyOnContent() {
+        String etag = service.toReferenceETag(List.of(new DealTypeDto("CREDIT", "Кредитная сделка")));
+
+        assertEquals(etag, service.toReferenceETag(List.of(new DealTypeDto("CREDIT", "Кредитная сделка"))));
+        assertNotEquals(etag, service.toReferenceETag(List.of(new DealTypeDto("CREDIT", "Кредит"))));
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+    }
+
+    @Test
+    void testParseDealVersion() {
+        assertEquals(12L, ETagService.parseDealVersion(" \"12\" "));
+        assertThrows(DealVersionMismatchException.class, () -> ETagService.parseDealVersion("W/\"12\""));
+        assertThrows(DealVersionMismatchException.class, () -> ETagService.parseDealVersion("\"abc\""));
+    }
+
+}
@@ -0,0 +1,205 @@
+package org.ex9.dealservice.service;
+
+import org.ex9.dealservice.dto.DealSearchRequestDto;
+import org.ex9.dealservice.exception.ExportJobNotFondException;
+import org.ex9.dealservice.exception.ExportJobNotReadyException;
+import org.ex9.dealservice.exception.ExportJobRejectedException;
+import org.ex9.dealservice.mapper.ExportJobMapper;
+import org.ex9.dealservice.model.ExportJob;
+import org.ex9.dealservice.model.ExportJobStatus;
+import org.ex9.dealservice.repository.ExportJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ExportJobServiceTest {
+
+    @Mock
+    private ExportJobRepository exportJobRepository;
+
+    @Mock
+    private DealService dealService;
+
+    @Mock
+    private TaskExecutor executor;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    private Path directory;
+
+    private ExportJobService service;
+
+    private final UUID jobId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        service = new ExportJobService(exportJobRepository, new ExportJobMapper(), dealService, executor,
+                transactionManager, directory, Duration.ofHours(1), "node-1", Duration.ofMinutes(5));
+    }
+
+    @Test
+    void testSubmit_runsJobAndStoresFile() {
+        var request = DealSearchRequestDto.builder().page(0).size(10).exportAll(true).build();
+        ExportJob[] stored = new ExportJob[1];
+
+        when(exportJobRepository.save(any(ExportJob.class))).thenAnswer(invocation -> {
+            ExportJob job = invocation.getArgument(0);
+            if (job.getId() == null) {
+                job.setId(jobId);
+            }
+            stored[0] = job;
+            return job;
+        });
+        when(exportJobRepository.findById(jobId)).thenAnswer(invocation -> Optional.of(stored[0]));
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write(new byte[]{1, 2, 3});
+            ((LongConsumer) invocation.getArgument(2)).accept(3);
+            return null;
+        }).when(dealService).exportDealsToExcel(eq(request), any(OutputStream.class), any(LongConsumer.class));
+
+        UUID result = service.submit(request);
+
+        assertEquals(jobId, result);
+        assertEquals(ExportJobStatus.DONE, stored[0].getStatus());
+        assertEquals("node-1", stored[0].getNodeId());
+        assertTrue(stored[0].getExpireDate().isAfter(stored[0].getFinishDate()));
+        assertTrue(Files.exists(service.getResultFile(jobId)));
+        verify(exportJobRepository).updateProgress(jobId, 3);
+    }
+
+    @Test
+    void testSubmit_queueFull_marksJobFailed() {
+        ExportJob job = ExportJob.builder()
+                .id(jobId)
+                .status(ExportJobStatus.QUEUED)
+                .processedDeals(0L)
+                .build();
+
+        when(exportJobRepository.save(any(ExportJob.class))).thenReturn(job);
+        when(exportJobRepository.findById(jobId)).thenReturn(Optional.of(job));
+        doThrow(new TaskRejectedException("full")).when(executor).execute(any(Runnable.class));
+
+        assertThrows(ExportJobRejectedException.class, () -> service.submit(new DealSearchRequestDto()));
+        assertEquals(ExportJobStatus.FAILED, job.getStatus());
+    }
+
+    @Test
+    void testGetResultFile_jobRunning_throwsNotReady() {
+        ExportJob job = ExportJob.builder()
+                .id(jobId)
+                .status(ExportJobStatus.RUNNING)
+                .build();
+
+        when(exportJobRepository.findById(jobId)).thenReturn(Optional.of(job));
+
+        assertThrows(ExportJobNotReadyException.class, () -> service.getResultFile(jobId));
+    }
+
+    @Test
+    void testGetResultFile_jobNotFound_throwsException() {
+        when(exportJobRepository.findById(jobId)).thenReturn(Optional.empty());
+
+        assertThrows(ExportJobNotFondException.class, () -> service.getResultFile(jobId));
+    }
+
+    @Test
+    void testDeleteExpiredFiles_deletesFileAndExpiresJob() throws Exception {
+        Path file = Files.createFile(directory.resolve(jobId + ".xlsx"));
+        ExportJob job = ExportJob.builder()
+                .id(jobId)
+                .status(ExportJobStatus.DONE)
+                .filePath(file.toString())
+                .expireDate(LocalDateTime.now().minusMinutes(1))
+                .build();
+
+        when(exportJobRepository.findAllByStatusAndNodeIdAndExpireDateBefore(eq(ExportJobStatus.DONE), eq("node-1"), any(LocalDateTime.class)))
+                .thenReturn(List.of(job));
+        when(exportJobRepository.findById(jobId)).thenReturn(Optional.of(job));
+        when(exportJobRepository.save(job)).thenReturn(job);
+
+        service.deleteExpiredFiles();
+
+        assertFalse(Files.exists(file));
+        assertEquals(ExportJobStatus.EXPIRED, job.getStatus());
+    }
+
+    @Test
+    void testDeleteExpiredFiles_legacyJobFileOnAnotherNode_notExpired() {
+        ExportJob job = ExportJob.builder()
+                .id(jobId)
+                .status(ExportJobStatus.DONE)
+                .filePath(directory.resolve("other-node.xlsx").toString())
+                .expireDate(LocalDateTime.now().minusMinutes(1))
+                .build();
+
+        when(exportJobRepository.findAllByStatusAndNodeIdIsNullAndExpireDateBefore(eq(ExportJobStatus.DONE), any(LocalDateTime.class)))
+                .thenReturn(List.of(job));
+
+        service.deleteExpiredFiles();
+
+        assertEquals(ExportJobStatus.DONE, job.getStatus());
+        verify(exportJobRepository, never()).save(any());
+    }
+
+    @Test
+    void testFailOrphanedJobs_failsOwnJobsCreatedBeforeStart() {
+        service.failOrphanedJobs();
+
+        ArgumentCaptor<LocalDateTime> createdBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(exportJobRepository).failOrphaned(eq("node-1"), eq(List.of(ExportJobStatus.QUEUED, ExportJobStatus.RUNNING)),
+                createdBefore.capture(), any(), any(LocalDateTime.class));
+        assertFalse(createdBefore.getValue().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    void testHeartbeat_refreshesOwnJobsAndFailsStaleJobs() {
+        LocalDateTime before = LocalDateTime.now();
+
+        service.heartbeat();
+
+        ArgumentCaptor<LocalDateTime> staleBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(exportJobRepository).heartbeat(eq("node-1"), eq(List.of(ExportJobStatus.QUEUED, ExportJobStatus.RUNNING)),
+                any(LocalDateTime.class));
+        verify(exportJobRepository).failStale(eq(List.of(ExportJobStatus.QUEUED, ExportJobStatus.RUNNING)),
+                staleBefore.capture(), any(), any(LocalDateTime.class));
+        assertFalse(staleBefore.getValue().isAfter(before.minusMinutes(5).plusSeconds(1)));
+    }
+
+}
@@ -0,0 +1,89 @@
+package org.ex9.dealservice.util;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExcelColumnWidthsTest {
+
+    private static final int CHAR_WIDTH = 256;
+    private static final int PADDING = 2;
+
+    @Test
+    void testApplyTo_widthFollowsLongestValue() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet();
+            var widths = new ExcelColumnWidths(1, 5, 60);
+
+            widths.track(0, "short");
+            widths.track(0, "a much longer value");
+            widths.track(0, null);
+            widths.applyTo(sheet);
+
+            assertEquals((19 + PADDING) * CHAR_WIDTH, sheet.getColumnWidth(0));
+        }
+    }
+
+    @Test
+    void testApplyTo_clampsToMinAndMax() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet();
+            var widths = new ExcelColumnWidths(3, 8, 20);
+
+            widths.track(0, "ab");
+            widths.track(1, "x".repeat(100));
+            widths.applyTo(sheet);
+
+            assertEquals((8 + PADDING) * CHAR_WIDTH, sheet.getColumnWidth(0));
+            assertEquals((20 + PADDING) * CHAR_WIDTH, sheet.getColumnWidth(1));
+            assertEquals((8 + PADDING) * CHAR_WIDTH, sheet.getColumnWidth(2));
+        }
+    }
+
+    @Test
+    void testApplyTo_maxAboveExcelLimit_cappedToExcelLimit() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet();
+            var widths = new ExcelColumnWidths(1, 8, 1000);
+
+            widths.track(0, "x".repeat(400));
+            widths.applyTo(sheet);
+
+            assertEquals(255 * CHAR_WIDTH, sheet.getColumnWidth(0));
+        }
+    }
+
+    @Test
+    void testTrack_multilineValue_usesLongestLine() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet();
+            var widths = new ExcelColumnWidths(1, 1, 60);
+
+            widths.track(0, "first line\nthe longest line here\nend");
+            widths.applyTo(sheet);
+
+            assertEquals((21 + PADDING) * CHAR_WIDTH, sheet.getColumnWidth(0));
+        }
+    }
+
+    @Test
+    void testCreateStyledCell_writesValueAndTracksWidth() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet();
+            Row row = sheet.createRow(0);
+            var widths = new ExcelColumnWidths(1, 1, 60);
+
+            widths.createStyledCell(row, 0, "0123456789ab", workbook.createCellStyle());
+            widths.applyTo(sheet);
+
+            assertEquals("0123456789ab", row.getCell(0).getStringCellValue());
+            assertEquals((12 + PADDING) * CHAR_WIDTH, sheet.getColumnWidth(0));
+        }
+    }
+
+}